@@ -0,0 +1,78 @@
+package com.ns.selai.execution.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Thread pools used to run test cases of a test run concurrently, and the
+ * background work they hand off
+ */
+@Configuration
+public class ExecutionConfig {
+
+    @Value("${execution.case-executor.pool-size:8}")
+    private int caseExecutorPoolSize;
+
+    @Value("${execution.matrix.lane-pool-size:16}")
+    private int lanePoolSize;
+
+    @Value("${execution.screenshot.writer.threads:1}")
+    private int screenshotWriterThreads;
+
+    @Value("${execution.screenshot.writer.queue-capacity:64}")
+    private int screenshotWriterQueueCapacity;
+
+    /**
+     * Shared pool on which individual test cases run. Per-run concurrency is
+     * limited separately by TestExecutionService, so the queue is unbounded.
+     */
+    @Bean(name = "testCaseExecutor")
+    public ThreadPoolTaskExecutor testCaseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(caseExecutorPoolSize);
+        executor.setMaxPoolSize(caseExecutorPoolSize);
+        executor.setThreadNamePrefix("test-case-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool on which the lanes of matrix runs schedule their cases. Lanes block
+     * while waiting for cases, so a queued lane could stall its whole run;
+     * there is no queue and a lane that finds no free thread is rejected.
+     */
+    @Bean(name = "laneExecutor")
+    public ThreadPoolTaskExecutor laneExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(lanePoolSize);
+        executor.setMaxPoolSize(lanePoolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("lane-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool on which ScreenshotWriter stores screenshots. The queue is bounded
+     * so captures never pile up in memory; queued screenshots are still
+     * written on shutdown.
+     */
+    @Bean(name = "screenshotWriterExecutor")
+    public ThreadPoolTaskExecutor screenshotWriterExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(screenshotWriterThreads);
+        executor.setMaxPoolSize(screenshotWriterThreads);
+        executor.setQueueCapacity(screenshotWriterQueueCapacity);
+        executor.setThreadNamePrefix("screenshot-writer-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ns.selai.execution.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves id sequences past the ids already in their tables at startup.
+ * <p>
+ * test_executions used identity ids before it switched to a pooled sequence;
+ * the schema update creates the sequence at 1, so on an existing database it
+ * would hand out ids that are already taken and every insert would fail. The
+ * sequence is set so that its next pooled block starts above max(id). This is
+ * a no-op once the sequence is ahead, so it is safe on every start.
+ */
+@Component
+@Slf4j
+public class SequenceInitializer {
+
+    // Must match the allocationSize of the entities' @SequenceGenerator
+    private static final List<IdSequence> SEQUENCES = List.of(
+            new IdSequence("test_executions_seq", "test_executions", 50),
+            new IdSequence("step_execution_results_seq", "step_execution_results", 50));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Depends on the EntityManagerFactory so the schema update has created the sequences
+    public SequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        for (IdSequence sequence : SEQUENCES) {
+            try {
+                Long maxId = jdbcTemplate.queryForObject(
+                        "SELECT COALESCE(MAX(id), 0) FROM " + sequence.table(), Long.class);
+                Long lastValue = jdbcTemplate.queryForObject(
+                        "SELECT last_value FROM " + sequence.name(), Long.class);
+                long required = maxId + sequence.allocationSize();
+                if (lastValue == null || lastValue < required) {
+                    jdbcTemplate.queryForObject("SELECT setval(?::regclass, ?)", Long.class, sequence.name(),
+                            required);
+                    log.info("Moved sequence {} from {} to {} past existing ids of {}", sequence.name(), lastValue,
+                            required, sequence.table());
+                }
+            } catch (Exception e) {
+                log.error("Failed to align sequence {} with table {}: ", sequence.name(), sequence.table(), e);
+            }
+        }
+    }
+
+    private record IdSequence(String name, String table, int allocationSize) {
+    }
+}
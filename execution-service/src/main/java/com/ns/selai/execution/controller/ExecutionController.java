@@ -1,17 +1,28 @@
 package com.ns.selai.execution.controller;
 
+import com.ns.selai.execution.dto.ExecutionJobStatus;
 import com.ns.selai.execution.dto.ExecutionRequest;
 import com.ns.selai.execution.dto.ExecutionResponse;
-import com.ns.selai.execution.service.TestExecutionService;
+import com.ns.selai.execution.dto.QueueStatusResponse;
+import com.ns.selai.execution.service.ExecutionJobQueue;
+import com.ns.selai.execution.service.RunCancellationRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * Controller for Execution Service to receive test cases and start execution.
  */
@@ -21,23 +32,75 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class ExecutionController {
 
-    private final TestExecutionService testExecutionService;
+    private final ExecutionJobQueue executionJobQueue;
+    private final RunCancellationRegistry cancellationRegistry;
 
     /**
-     * Receives test cases from Orchestration Service and starts their execution.
+     * Receives test cases from Orchestration Service and queues their execution.
+     * Responds with 429 and Retry-After when the queue is full.
      * POST /api/execute
      */
     @PostMapping
     public ResponseEntity<ExecutionResponse> executeTests(@RequestBody ExecutionRequest request) {
         log.info("REST request to execute tests for test run ID: {}", request.getTestRunId());
 
-        // Execute tests in a separate thread to avoid blocking the HTTP response
-        // For simplicity, calling directly here. In a real-world scenario, this might
-        // be async or use a message queue.
-        testExecutionService.executeTestRun(request.getTestRunId(), request.getTestCases());
+        String jobId = executionJobQueue.submit(request);
 
         return new ResponseEntity<>(
-                new ExecutionResponse("Test execution initiated for run ID: " + request.getTestRunId()),
+                new ExecutionResponse("Test execution queued for run ID: " + request.getTestRunId(), jobId),
+                HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Streaming variant for large suites: the body is a JSON array of test cases
+     * or one test case per line (NDJSON). Cases are parsed and validated one at a
+     * time and spooled to disk; responds once the body has been read and the run
+     * is queued.
+     * POST /api/execute/stream?testRunId={id}&concurrency={n}&browsers=chrome,firefox
+     */
+    @PostMapping(value = "/stream",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ExecutionResponse> executeTestsStreamed(@RequestParam Long testRunId,
+            @RequestParam(required = false) Integer concurrency,
+            @RequestParam(required = false) List<String> browsers,
+            HttpServletRequest request) throws IOException {
+        log.info("REST request to execute streamed tests for test run ID: {}", testRunId);
+
+        String jobId = executionJobQueue.submitStream(testRunId, concurrency, browsers,
+                request.getInputStream());
+
+        return new ResponseEntity<>(
+                new ExecutionResponse("Streamed test execution queued for run ID: " + testRunId, jobId),
+                HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Cancels a test run: running test cases stop at the next step, waits are
+     * interrupted, browsers are released and remaining cases are recorded as SKIPPED.
+     * POST /api/execute/{testRunId}/cancel
+     */
+    @PostMapping("/{testRunId}/cancel")
+    public ResponseEntity<ExecutionResponse> cancelExecution(@PathVariable Long testRunId) {
+        log.info("REST request to cancel execution of test run ID: {}", testRunId);
+        cancellationRegistry.cancel(testRunId);
+        return new ResponseEntity<>(new ExecutionResponse("Cancellation requested for run ID: " + testRunId),
                 HttpStatus.ACCEPTED);
     }
-}
\ No newline at end of file
+
+    /**
+     * GET /api/execute/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ExecutionJobStatus> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(executionJobQueue.getJob(jobId));
+    }
+
+    /**
+     * Reports queue depth and browser slot usage.
+     * GET /api/execute/status
+     */
+    @GetMapping("/status")
+    public ResponseEntity<QueueStatusResponse> getStatus() {
+        return ResponseEntity.ok(executionJobQueue.getStatus());
+    }
+}
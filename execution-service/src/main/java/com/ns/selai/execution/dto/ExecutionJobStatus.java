@@ -0,0 +1,32 @@
+package com.ns.selai.execution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a queued test run execution job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionJobStatus {
+    private String jobId;
+    private Long testRunId;
+    private JobState state;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String errorMessage;
+
+    public enum JobState {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -14,6 +14,8 @@ import java.util.List;
 public class ExecutionRequest {
     private Long testRunId;
     private List<TestCase> testCases;
+    private Integer concurrency; // Max test cases run in parallel per browser, defaults to execution.run.concurrency
+    private List<String> browsers; // Each test case runs once per browser, in parallel lanes
 
     @Data
     @Builder
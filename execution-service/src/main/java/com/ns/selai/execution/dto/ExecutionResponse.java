@@ -9,4 +9,9 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class ExecutionResponse {
     private String message;
-}
\ No newline at end of file
+    private String jobId;
+
+    public ExecutionResponse(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ns.selai.execution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Snapshot of the execution job queue and browser capacity
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueStatusResponse {
+    private int queueDepth;
+    private int queueCapacity;
+    private int activeJobs;
+    private int workerCount;
+    private int activeBrowserSlots;
+    private int liveBrowserSessions;
+    private int maxBrowserSlots;
+}
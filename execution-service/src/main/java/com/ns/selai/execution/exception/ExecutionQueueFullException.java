@@ -0,0 +1,17 @@
+package com.ns.selai.execution.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the execution job queue has no room for another test run
+ */
+@Getter
+public class ExecutionQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ExecutionQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ns.selai.execution.exception;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+
+@RestControllerAdvice
+@Slf4j
+public class GlobalExceptionHandler {
+
+    /**
+     * Handle ResourceNotFoundException
+     */
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleResourceNotFoundException(
+            ResourceNotFoundException ex,
+            WebRequest request) {
+
+        log.error("Resource not found: {}", ex.getMessage());
+        return new ResponseEntity<>(buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage(), request),
+                HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handle a full execution queue by asking the caller to retry later
+     */
+    @ExceptionHandler(ExecutionQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleExecutionQueueFullException(
+            ExecutionQueueFullException ex,
+            WebRequest request) {
+
+        log.warn("Execution queue full: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(buildErrorResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), request));
+    }
+
+    /**
+     * Handle test cases that failed validation; every problem is listed in details
+     */
+    @ExceptionHandler(InvalidTestPlanException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidTestPlanException(
+            InvalidTestPlanException ex,
+            WebRequest request) {
+
+        log.warn("Rejected invalid test cases: {}", ex.getMessage());
+        ErrorResponse body = buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
+        body.setDetails(ex.getErrors());
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
+    private ErrorResponse buildErrorResponse(HttpStatus status, String message, WebRequest request) {
+        return new ErrorResponse(
+                LocalDateTime.now(),
+                status.value(),
+                status.getReasonPhrase(),
+                message,
+                request.getDescription(false).replace("uri=", ""));
+    }
+}
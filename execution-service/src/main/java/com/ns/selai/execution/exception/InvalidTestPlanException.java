@@ -0,0 +1,19 @@
+package com.ns.selai.execution.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when submitted test cases fail validation, before anything is queued
+ */
+@Getter
+public class InvalidTestPlanException extends RuntimeException {
+
+    private final List<String> errors;
+
+    public InvalidTestPlanException(List<String> errors) {
+        super("Invalid test cases (" + errors.size() + " error(s)): " + errors.get(0));
+        this.errors = List.copyOf(errors);
+    }
+}
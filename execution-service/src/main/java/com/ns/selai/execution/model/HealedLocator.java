@@ -0,0 +1,51 @@
+package com.ns.selai.execution.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Replacement for a selector that stopped matching on a page. Later runs use the
+ * healed selector directly instead of waiting for the broken one to time out.
+ */
+@Entity
+@Table(name = "healed_locators", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_healed_locators_page_selector", columnNames = {"page_url", "original_selector"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HealedLocator {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Page URL without query string or fragment
+    @Column(name = "page_url", nullable = false, length = 2048)
+    private String pageUrl;
+
+    @Column(name = "original_selector", nullable = false, length = 1024)
+    private String originalSelector;
+
+    @Column(name = "healed_selector", nullable = false, length = 1024)
+    private String healedSelector;
+
+    @Column(name = "strategy", nullable = false)
+    private String strategy;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,48 @@
+package com.ns.selai.execution.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Links a step of a test run to a screenshot blob. Identical images share one
+ * blob; the blob is deleted once no reference points to it.
+ */
+@Entity
+@Table(name = "screenshot_refs", indexes = {
+        @Index(name = "idx_screenshot_refs_test_run", columnList = "test_run_id"),
+        @Index(name = "idx_screenshot_refs_blob", columnList = "blob_hash")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreenshotReference {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "test_run_id", nullable = false)
+    private Long testRunId;
+
+    @Column(name = "test_name")
+    private String testName;
+
+    @Column(name = "step_index", nullable = false)
+    private Integer stepIndex;
+
+    @Column(name = "step_name", nullable = false)
+    private String stepName;
+
+    // SHA-256 of the encoded PNG
+    @Column(name = "blob_hash", nullable = false, length = 64)
+    private String blobHash;
+
+    @Column(name = "captured_at", nullable = false)
+    private LocalDateTime capturedAt;
+}
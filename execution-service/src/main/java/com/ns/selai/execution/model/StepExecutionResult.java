@@ -0,0 +1,61 @@
+package com.ns.selai.execution.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one step of a test execution, in step order.
+ */
+@Entity
+@Table(name = "step_execution_results", indexes = {
+        @Index(name = "idx_step_results_execution", columnList = "test_execution_id, step_index"),
+        @Index(name = "idx_step_results_test_run", columnList = "test_run_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepExecutionResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "step_execution_results_seq")
+    @SequenceGenerator(name = "step_execution_results_seq", sequenceName = "step_execution_results_seq",
+            allocationSize = 50)
+    private Long id;
+
+    @Column(name = "test_execution_id", nullable = false)
+    private Long testExecutionId;
+
+    @Column(name = "test_run_id", nullable = false)
+    private Long testRunId;
+
+    @Column(name = "step_index", nullable = false)
+    private Integer stepIndex;
+
+    @Column(name = "action", nullable = false)
+    private String action;
+
+    @Column(name = "selector", columnDefinition = "TEXT")
+    private String selector;
+
+    @Column(name = "success", nullable = false)
+    private boolean success;
+
+    @Column(name = "message", columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "error_type")
+    private String errorType;
+
+    @Column(name = "screenshot_path")
+    private String screenshotPath;
+
+    @Column(name = "execution_time_ms")
+    private Long executionTimeMs;
+
+    @Column(name = "wait_time_ms")
+    private Long waitTimeMs;
+}
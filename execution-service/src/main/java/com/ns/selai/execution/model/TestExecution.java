@@ -17,8 +17,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class TestExecution {
 
+    // Pooled sequence ids: inserts can be batched, one sequence call per 50 rows
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "test_executions_seq")
+    @SequenceGenerator(name = "test_executions_seq", sequenceName = "test_executions_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "test_run_id", nullable = false)
@@ -30,6 +32,13 @@ public class TestExecution {
     @Column(name = "test_description", columnDefinition = "TEXT")
     private String testDescription;
 
+    @Column(name = "browser")
+    private String browser;
+
+    // Engine the result came from; differs from the browser lane when the case ran on a fallback engine
+    @Column(name = "engine")
+    private String engine;
+
     @Column(name = "status", nullable = false)
     @Enumerated(EnumType.STRING)
     private TestExecutionStatus status;
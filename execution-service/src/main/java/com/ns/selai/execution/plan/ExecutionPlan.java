@@ -0,0 +1,14 @@
+package com.ns.selai.execution.plan;
+
+import java.util.List;
+
+/**
+ * Compiled form of a test case: its validated steps plus the hash of the test
+ * case content it was compiled from.
+ */
+public record ExecutionPlan(String name, String description, List<PlannedStep> steps, String contentHash) {
+
+    public ExecutionPlan {
+        steps = List.copyOf(steps);
+    }
+}
@@ -0,0 +1,307 @@
+package com.ns.selai.execution.plan;
+
+import com.ns.selai.execution.dto.ExecutionRequest;
+import com.ns.selai.execution.exception.InvalidTestPlanException;
+import org.openqa.selenium.By;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles test cases into execution plans. All steps are validated up front,
+ * so a suite with an unknown action or a malformed selector is rejected before
+ * a browser is started. Plans are cached by a hash of the test case content.
+ */
+@Component
+public class PlanCompiler {
+
+    private final Map<String, ExecutionPlan> cache;
+
+    @Value("${execution.plan.max-wait-seconds:300}")
+    private int maxWaitSeconds;
+
+    public PlanCompiler(@Value("${execution.plan.cache-size:1000}") int cacheSize) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ExecutionPlan> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Compiles all test cases of a run.
+     *
+     * @throws InvalidTestPlanException listing every problem found
+     */
+    public List<ExecutionPlan> compile(List<ExecutionRequest.TestCase> testCases) {
+        if (testCases == null || testCases.isEmpty()) {
+            throw new InvalidTestPlanException(List.of("No test cases to execute"));
+        }
+        List<ExecutionPlan> plans = new ArrayList<>(testCases.size());
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < testCases.size(); i++) {
+            ExecutionRequest.TestCase testCase = testCases.get(i);
+            if (testCase == null) {
+                errors.add("Test case " + (i + 1) + " is empty");
+                continue;
+            }
+            ExecutionPlan plan = compile(testCase, errors);
+            if (plan != null) {
+                plans.add(plan);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new InvalidTestPlanException(errors);
+        }
+        return plans;
+    }
+
+    /**
+     * Compiles a single test case.
+     *
+     * @throws InvalidTestPlanException listing every problem found
+     */
+    public ExecutionPlan compile(ExecutionRequest.TestCase testCase) {
+        List<String> errors = new ArrayList<>();
+        ExecutionPlan plan = compile(testCase, errors);
+        if (!errors.isEmpty()) {
+            throw new InvalidTestPlanException(errors);
+        }
+        return plan;
+    }
+
+    private ExecutionPlan compile(ExecutionRequest.TestCase testCase, List<String> errors) {
+        String hash = contentHash(testCase);
+        synchronized (cache) {
+            ExecutionPlan cached = cache.get(hash);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        int errorCount = errors.size();
+        String name = testCase.getName();
+        if (name == null || name.isBlank()) {
+            errors.add("Test case name is required");
+            name = "<unnamed>";
+        }
+        List<ExecutionRequest.TestStep> steps = testCase.getSteps();
+        if (steps == null || steps.isEmpty()) {
+            errors.add("Test case '" + name + "' has no steps");
+            return null;
+        }
+
+        List<PlannedStep> planned = new ArrayList<>(steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            String position = "Test case '" + name + "' step " + (i + 1);
+            ExecutionRequest.TestStep step = steps.get(i);
+            if (step == null) {
+                errors.add(position + " is empty");
+                continue;
+            }
+            PlannedStep compiled = compileStep(step, position, errors);
+            if (compiled != null) {
+                planned.add(compiled);
+            }
+        }
+        if (errors.size() > errorCount) {
+            return null;
+        }
+
+        ExecutionPlan plan = new ExecutionPlan(name, testCase.getDescription(), planned, hash);
+        synchronized (cache) {
+            cache.put(hash, plan);
+        }
+        return plan;
+    }
+
+    private PlannedStep compileStep(ExecutionRequest.TestStep step, String position, List<String> errors) {
+        StepAction action = StepAction.fromName(step.getAction());
+        if (action == null) {
+            errors.add(position + ": unknown action '" + step.getAction() + "'");
+            return null;
+        }
+        position = position + " (" + action.getName() + ")";
+
+        switch (action) {
+            case OPEN_URL:
+                return validUrl(step.getUrl(), position, errors)
+                        ? new PlannedStep.OpenUrl(step.getUrl().trim()) : null;
+            case WAIT:
+                Duration duration = waitDuration(step.getValue(), position, errors);
+                return duration != null ? new PlannedStep.Wait(duration) : null;
+            default:
+                break;
+        }
+
+        PlannedStep.Target target = target(step.getSelector(), position, errors);
+        if (target == null) {
+            return null;
+        }
+        switch (action) {
+            case CLICK:
+                return new PlannedStep.Click(target);
+            case TYPE:
+                return required(step.getValue(), "value", position, errors)
+                        ? new PlannedStep.Type(target, step.getValue()) : null;
+            case SUBMIT:
+                return new PlannedStep.Submit(target);
+            case ASSERT_TEXT:
+                return required(step.getExpectedText(), "expectedText", position, errors)
+                        ? new PlannedStep.AssertText(target, step.getExpectedText()) : null;
+            case ASSERT_ELEMENT_PRESENT:
+                return new PlannedStep.AssertElementPresent(target);
+            case SCROLL:
+                return new PlannedStep.Scroll(target);
+            case SELECT_DROPDOWN:
+                if (step.getValue() == null || step.getValue().isBlank()) {
+                    errors.add(position + ": value is required");
+                    return null;
+                }
+                return new PlannedStep.SelectDropdown(target, step.getValue());
+            case CLEAR:
+                return new PlannedStep.Clear(target);
+            default:
+                throw new IllegalStateException("Unhandled action: " + action);
+        }
+    }
+
+    private PlannedStep.Target target(String selector, String position, List<String> errors) {
+        if (selector == null || selector.isBlank()) {
+            errors.add(position + ": selector is required");
+            return null;
+        }
+        String trimmed = selector.trim();
+        if (isXPath(trimmed)) {
+            try {
+                XPathFactory.newInstance().newXPath().compile(trimmed);
+            } catch (XPathExpressionException e) {
+                errors.add(position + ": invalid XPath '" + trimmed + "'");
+                return null;
+            }
+            return new PlannedStep.Target(trimmed, By.xpath(trimmed));
+        }
+        if (!balanced(trimmed) || trimmed.startsWith(">") || trimmed.startsWith("+") || trimmed.startsWith("~")) {
+            errors.add(position + ": invalid CSS selector '" + trimmed + "'");
+            return null;
+        }
+        return new PlannedStep.Target(trimmed, By.cssSelector(trimmed));
+    }
+
+    private boolean validUrl(String url, String position, List<String> errors) {
+        if (url == null || url.isBlank()) {
+            errors.add(position + ": url is required");
+            return false;
+        }
+        try {
+            if (URI.create(url.trim()).getScheme() != null) {
+                return true;
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        errors.add(position + ": invalid absolute url '" + url + "'");
+        return false;
+    }
+
+    private Duration waitDuration(String value, String position, List<String> errors) {
+        try {
+            int seconds = Integer.parseInt(value == null ? "" : value.trim());
+            if (seconds >= 0 && seconds <= maxWaitSeconds) {
+                return Duration.ofSeconds(seconds);
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        errors.add(position + ": value must be a number of seconds between 0 and " + maxWaitSeconds
+                + ", was '" + value + "'");
+        return null;
+    }
+
+    private static boolean required(String value, String field, String position, List<String> errors) {
+        if (value == null) {
+            errors.add(position + ": " + field + " is required");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether a selector is an XPath expression rather than a CSS selector.
+     */
+    public static boolean isXPath(String selector) {
+        return selector.startsWith("/") || selector.startsWith("(");
+    }
+
+    // Brackets and parentheses outside quoted strings must balance
+    private static boolean balanced(String selector) {
+        int brackets = 0;
+        int parentheses = 0;
+        char quote = 0;
+        for (char c : selector.toCharArray()) {
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                brackets++;
+            } else if (c == ']' && --brackets < 0) {
+                return false;
+            } else if (c == '(') {
+                parentheses++;
+            } else if (c == ')' && --parentheses < 0) {
+                return false;
+            }
+        }
+        return quote == 0 && brackets == 0 && parentheses == 0;
+    }
+
+    // Length-prefixed fields, so that different test cases cannot produce the same input
+    private static String contentHash(ExecutionRequest.TestCase testCase) {
+        StringBuilder content = new StringBuilder();
+        append(content, testCase.getName());
+        append(content, testCase.getDescription());
+        if (testCase.getSteps() != null) {
+            for (ExecutionRequest.TestStep step : testCase.getSteps()) {
+                if (step == null) {
+                    content.append("null;");
+                    continue;
+                }
+                append(content, step.getAction());
+                append(content, step.getSelector());
+                append(content, step.getValue());
+                append(content, step.getUrl());
+                append(content, step.getExpectedText());
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void append(StringBuilder content, String value) {
+        if (value == null) {
+            content.append("-1:");
+        } else {
+            content.append(value.length()).append(':').append(value);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ns.selai.execution.plan;
+
+import org.openqa.selenium.By;
+
+import java.time.Duration;
+
+/**
+ * A validated, immutable test step. Element steps carry their locator already
+ * resolved, so nothing is parsed while the browser is running.
+ */
+public sealed interface PlannedStep {
+
+    StepAction action();
+
+    /**
+     * Selector as written in the test case, or null for steps without an element.
+     */
+    default String selector() {
+        return null;
+    }
+
+    /**
+     * An element selector together with its precomputed locator.
+     */
+    record Target(String selector, By locator) {
+    }
+
+    sealed interface ElementStep extends PlannedStep {
+        Target target();
+
+        @Override
+        default String selector() {
+            return target().selector();
+        }
+    }
+
+    record OpenUrl(String url) implements PlannedStep {
+        public StepAction action() {
+            return StepAction.OPEN_URL;
+        }
+    }
+
+    record Click(Target target) implements ElementStep {
+        public StepAction action() {
+            return StepAction.CLICK;
+        }
+    }
+
+    record Type(Target target, String value) implements ElementStep {
+        public StepAction action() {
+            return StepAction.TYPE;
+        }
+    }
+
+    record Submit(Target target) implements ElementStep {
+        public StepAction action() {
+            return StepAction.SUBMIT;
+        }
+    }
+
+    record Wait(Duration duration) implements PlannedStep {
+        public StepAction action() {
+            return StepAction.WAIT;
+        }
+    }
+
+    record AssertText(Target target, String expectedText) implements ElementStep {
+        public StepAction action() {
+            return StepAction.ASSERT_TEXT;
+        }
+    }
+
+    record AssertElementPresent(Target target) implements ElementStep {
+        public StepAction action() {
+            return StepAction.ASSERT_ELEMENT_PRESENT;
+        }
+    }
+
+    record Scroll(Target target) implements ElementStep {
+        public StepAction action() {
+            return StepAction.SCROLL;
+        }
+    }
+
+    record SelectDropdown(Target target, String value) implements ElementStep {
+        public StepAction action() {
+            return StepAction.SELECT_DROPDOWN;
+        }
+    }
+
+    record Clear(Target target) implements ElementStep {
+        public StepAction action() {
+            return StepAction.CLEAR;
+        }
+    }
+}
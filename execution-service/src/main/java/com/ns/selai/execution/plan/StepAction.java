@@ -0,0 +1,52 @@
+package com.ns.selai.execution.plan;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Step actions understood by the executor, with the names used in test case
+ * definitions.
+ */
+public enum StepAction {
+    OPEN_URL("open_url"),
+    CLICK("click"),
+    TYPE("type"),
+    SUBMIT("submit"),
+    WAIT("wait"),
+    ASSERT_TEXT("assert_text"),
+    ASSERT_ELEMENT_PRESENT("assert_element_present"),
+    SCROLL("scroll"),
+    SELECT_DROPDOWN("select_dropdown"),
+    CLEAR("clear");
+
+    private static final Map<String, StepAction> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(StepAction::getName, Function.identity()));
+
+    private final String name;
+
+    StepAction(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Whether the action only checks the page (assert_*). Assertions must see
+     * the selector as written, so they never use healed selectors.
+     */
+    public boolean isAssertion() {
+        return name.startsWith("assert_");
+    }
+
+    /**
+     * Resolves an action name case-insensitively, or returns null if unknown.
+     */
+    public static StepAction fromName(String name) {
+        return name == null ? null : BY_NAME.get(name.trim().toLowerCase(Locale.ROOT));
+    }
+}
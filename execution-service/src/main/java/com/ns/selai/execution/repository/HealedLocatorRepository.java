@@ -0,0 +1,17 @@
+package com.ns.selai.execution.repository;
+
+import com.ns.selai.execution.model.HealedLocator;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface HealedLocatorRepository extends JpaRepository<HealedLocator, Long> {
+
+    Optional<HealedLocator> findByPageUrlAndOriginalSelector(String pageUrl, String originalSelector);
+
+    @Transactional
+    void deleteByPageUrlAndOriginalSelector(String pageUrl, String originalSelector);
+}
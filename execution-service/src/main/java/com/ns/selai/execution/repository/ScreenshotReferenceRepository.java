@@ -0,0 +1,25 @@
+package com.ns.selai.execution.repository;
+
+import com.ns.selai.execution.model.ScreenshotReference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ScreenshotReferenceRepository extends JpaRepository<ScreenshotReference, Long> {
+
+    @Query("SELECT DISTINCT r.blobHash FROM ScreenshotReference r WHERE r.testRunId = :testRunId")
+    List<String> findBlobHashesByTestRunId(@Param("testRunId") Long testRunId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ScreenshotReference r WHERE r.testRunId = :testRunId")
+    int deleteByTestRunId(@Param("testRunId") Long testRunId);
+
+    long countByBlobHash(String blobHash);
+}
@@ -0,0 +1,16 @@
+package com.ns.selai.execution.repository;
+
+import com.ns.selai.execution.model.StepExecutionResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StepExecutionResultRepository extends JpaRepository<StepExecutionResult, Long> {
+
+    // Steps of a test execution in the order they ran
+    List<StepExecutionResult> findByTestExecutionIdOrderByStepIndex(Long testExecutionId);
+
+    List<StepExecutionResult> findByTestRunId(Long testRunId);
+}
@@ -1,28 +1,179 @@
 package com.ns.selai.execution.selenium;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.edge.EdgeDriver;
-import org.openqa.selenium.edge.EdgeOptions;
-import org.openqa.selenium.firefox.FirefoxDriver;
-import org.openqa.selenium.firefox.FirefoxOptions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Manages WebDriver instances for test execution
+ * Manages WebDriver instances for test execution.
+ * <p>
+ * Sessions are kept in a bounded pool per browser type so that test runs lease
+ * an already started browser instead of launching a new process every time.
+ * Sessions are reset between leases and discarded when they fail a health check.
+ * <p>
+ * Browser names are {@link ExecutionEngine} names: chrome, firefox and edge are
+ * local browser processes, and engine beans such as {@link HtmlUnitEngine} add
+ * further names. An engine may cap its own pool size.
  */
 @Component
 @Slf4j
 public class BrowserManager {
 
     private final Map<Long, WebDriver> activeDrivers = new ConcurrentHashMap<>();
+    private final Map<String, BrowserPool> pools = new ConcurrentHashMap<>();
+    private final Map<WebDriver, PooledSession> leasedSessions = new ConcurrentHashMap<>();
+    private final Map<String, ExecutionEngine> engines = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService maintenanceExecutor;
+
+    @Value("${execution.browser.pool.min-idle:1}")
+    private int minIdle;
+
+    @Value("${execution.browser.pool.max-size:4}")
+    private int maxSize;
+
+    @Value("${execution.browser.pool.idle-timeout-seconds:300}")
+    private long idleTimeoutSeconds;
+
+    @Value("${execution.browser.pool.borrow-timeout-seconds:120}")
+    private long borrowTimeoutSeconds;
+
+    @Value("${execution.browser.pool.maintenance-interval-seconds:30}")
+    private long maintenanceIntervalSeconds;
+
+    @Value("${execution.browser.pool.prewarm:chrome}")
+    private String prewarmBrowsers;
+
+    public BrowserManager(List<ExecutionEngine> engines) {
+        LocalBrowserEngine.BROWSERS.forEach(browser -> this.engines.put(browser, new LocalBrowserEngine(browser)));
+        engines.forEach(engine -> this.engines.put(engine.getName(), engine));
+    }
+
+    @PostConstruct
+    public void startPoolMaintenance() {
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "browser-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Arrays.stream(prewarmBrowsers.split(","))
+                .map(String::trim)
+                .filter(browser -> !browser.isEmpty())
+                .forEach(this::poolFor);
+        maintenanceExecutor.scheduleWithFixedDelay(this::maintainPools, 0, maintenanceIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdownPools() {
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+        }
+        pools.values().forEach(BrowserPool::drain);
+        leasedSessions.keySet().forEach(this::quitWebDriver);
+        leasedSessions.clear();
+        closeAllDrivers();
+    }
+
+    /**
+     * Leases a browser session from the pool, starting a new one when no idle
+     * session is available. Blocks while the pool is at its maximum size.
+     */
+    public WebDriver borrowWebDriver(String browser) {
+        BrowserPool pool = poolFor(browser);
+        try {
+            if (!pool.permits.tryAcquire(borrowTimeoutSeconds, TimeUnit.SECONDS)) {
+                throw new IllegalStateException(
+                        "Timed out waiting for a " + pool.browser + " session after " + borrowTimeoutSeconds + "s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a " + pool.browser + " session", e);
+        }
+
+        try {
+            PooledSession session;
+            while ((session = pool.idle.pollFirst()) != null) {
+                if (isHealthy(session.driver)) {
+                    break;
+                }
+                log.warn("Discarding unhealthy idle {} session", pool.browser);
+                pool.discard(session);
+            }
+            if (session == null) {
+                session = pool.create();
+            }
+            leasedSessions.put(session.driver, session);
+            return session.driver;
+        } catch (RuntimeException e) {
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a leased session to the pool. The session is reset and health
+     * checked first; sessions that cannot be reset are quit instead.
+     */
+    public void returnWebDriver(WebDriver driver) {
+        if (driver == null) {
+            return;
+        }
+        PooledSession session = leasedSessions.remove(driver);
+        if (session == null) {
+            quitWebDriver(driver);
+            return;
+        }
+        BrowserPool pool = session.pool;
+        try {
+            if (resetSession(driver) && isHealthy(driver)) {
+                session.lastReturnedAt = System.nanoTime();
+                pool.idle.offerFirst(session);
+            } else {
+                log.warn("Discarding {} session that failed reset or health check", pool.browser);
+                pool.discard(session);
+            }
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    /**
+     * Removes a leased session from the pool without reusing it, e.g. after the
+     * browser crashed or was interrupted mid-command.
+     */
+    public void invalidateWebDriver(WebDriver driver) {
+        if (driver == null) {
+            return;
+        }
+        PooledSession session = leasedSessions.remove(driver);
+        if (session == null) {
+            quitWebDriver(driver);
+            return;
+        }
+        session.pool.discard(session);
+        session.pool.permits.release();
+    }
 
     public WebDriver getWebDriver(String browser) {
         return createDriver(browser);
@@ -48,34 +199,9 @@ public class BrowserManager {
     }
 
     private WebDriver createDriver(String browser) {
-        WebDriver driver;
-        switch (browser.toLowerCase()) {
-            case "chrome":
-                WebDriverManager.chromedriver().setup();
-                ChromeOptions chromeOptions = new ChromeOptions();
-                chromeOptions.addArguments("--start-maximized");
-                chromeOptions.addArguments("--disable-notifications");
-                chromeOptions.addArguments("--disable-popup-blocking");
-                chromeOptions.addArguments("--headless=new");
-                driver = new ChromeDriver(chromeOptions);
-                break;
-            case "firefox":
-                WebDriverManager.firefoxdriver().setup();
-                FirefoxOptions firefoxOptions = new FirefoxOptions();
-                firefoxOptions.addArguments("--headless");
-                driver = new FirefoxDriver(firefoxOptions);
-                break;
-            case "edge":
-                WebDriverManager.edgedriver().setup();
-                EdgeOptions edgeOptions = new EdgeOptions();
-                edgeOptions.addArguments("--headless");
-                driver = new EdgeDriver(edgeOptions);
-                break;
-            default:
-                WebDriverManager.chromedriver().setup();
-                driver = new ChromeDriver();
-        }
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+        WebDriver driver = getEngine(browser).createDriver();
+        // No implicit wait: element waits are explicit and condition-based (see WaitEngine)
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
         driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(30));
         driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(30));
         return driver;
@@ -92,4 +218,182 @@ public class BrowserManager {
         activeDrivers.forEach((testRunId, driver) -> quitWebDriver(driver));
         activeDrivers.clear();
     }
+
+    /**
+     * Number of sessions currently leased across all browser pools.
+     */
+    public int getLeasedSessionCount() {
+        return leasedSessions.size();
+    }
+
+    /**
+     * Number of started sessions (idle and leased) across all browser pools.
+     */
+    public int getLiveSessionCount() {
+        return pools.values().stream().mapToInt(pool -> pool.live.get()).sum();
+    }
+
+    public int getMaxPoolSize() {
+        return maxSize;
+    }
+
+    /**
+     * Maximum number of concurrent sessions of a browser; engines may override
+     * the pool's max size.
+     */
+    public int getMaxPoolSize(String browser) {
+        int engineMax = getEngine(browser).getMaxSessions();
+        return engineMax > 0 ? engineMax : maxSize;
+    }
+
+    /**
+     * Engine behind a browser name; unknown names run on Chrome.
+     */
+    public ExecutionEngine getEngine(String browser) {
+        ExecutionEngine engine = browser == null ? null : engines.get(browser.trim().toLowerCase(Locale.ROOT));
+        return engine != null ? engine : engines.get("chrome");
+    }
+
+    // Keyed by engine, so names that resolve to the same engine share its pool and session limit
+    private BrowserPool poolFor(String browser) {
+        return pools.computeIfAbsent(getEngine(browser).getName(), BrowserPool::new);
+    }
+
+    private void maintainPools() {
+        for (BrowserPool pool : pools.values()) {
+            try {
+                pool.evictIdle();
+                pool.fillToMinIdle();
+            } catch (Exception e) {
+                log.error("Browser pool maintenance failed for {}: ", pool.browser, e);
+            }
+        }
+    }
+
+    private boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Clears per-test state so the next lease starts from a blank browser:
+     * extra tabs are closed, cookies and web storage are wiped.
+     */
+    private boolean resetSession(WebDriver driver) {
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            for (int i = 1; i < handles.size(); i++) {
+                driver.switchTo().window(handles.get(i));
+                driver.close();
+            }
+            driver.switchTo().window(handles.get(0));
+            driver.manage().deleteAllCookies();
+            try {
+                ((JavascriptExecutor) driver).executeScript(
+                        "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            } catch (Exception e) {
+                log.debug("Could not clear web storage: {}", e.getMessage());
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to reset browser session: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static final class PooledSession {
+        private final BrowserPool pool;
+        private final WebDriver driver;
+        private volatile long lastReturnedAt = System.nanoTime();
+
+        private PooledSession(BrowserPool pool, WebDriver driver) {
+            this.pool = pool;
+            this.driver = driver;
+        }
+    }
+
+    private final class BrowserPool {
+        private final String browser;
+        private final LinkedBlockingDeque<PooledSession> idle = new LinkedBlockingDeque<>();
+        private final Semaphore permits;
+        private final int maxSessions;
+        private final AtomicInteger live = new AtomicInteger();
+
+        private BrowserPool(String browser) {
+            this.browser = browser;
+            this.maxSessions = getMaxPoolSize(browser);
+            this.permits = new Semaphore(maxSessions, true);
+        }
+
+        private PooledSession create() {
+            live.incrementAndGet();
+            return start();
+        }
+
+        private PooledSession start() {
+            try {
+                log.info("Starting new {} session for pool", browser);
+                return new PooledSession(this, createDriver(browser));
+            } catch (RuntimeException e) {
+                live.decrementAndGet();
+                throw e;
+            }
+        }
+
+        private void discard(PooledSession session) {
+            live.decrementAndGet();
+            quitWebDriver(session.driver);
+        }
+
+        private void evictIdle() {
+            long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+            Iterator<PooledSession> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PooledSession session = it.next();
+                if (session.lastReturnedAt < cutoff && idle.remove(session)) {
+                    log.info("Evicting idle {} session", browser);
+                    discard(session);
+                }
+            }
+            for (PooledSession session : Set.copyOf(idle)) {
+                if (!isHealthy(session.driver) && idle.remove(session)) {
+                    log.warn("Discarding unhealthy idle {} session", browser);
+                    discard(session);
+                }
+            }
+        }
+
+        // Each new session holds a permit while it starts, so borrowers that find the pool
+        // empty meanwhile cannot start sessions beyond the max size
+        private void fillToMinIdle() {
+            while (idle.size() < minIdle) {
+                if (!permits.tryAcquire()) {
+                    return;
+                }
+                try {
+                    int current = live.get();
+                    if (current >= maxSessions) {
+                        return;
+                    }
+                    if (live.compareAndSet(current, current + 1)) {
+                        idle.offerLast(start());
+                    }
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+
+        private void drain() {
+            PooledSession session;
+            while ((session = idle.pollFirst()) != null) {
+                discard(session);
+            }
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package com.ns.selai.execution.selenium;
+
+import com.ns.selai.execution.plan.ExecutionPlan;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * A kind of browser session test cases run on, e.g. a local Chrome or the
+ * in-JVM HtmlUnit browser. {@link BrowserManager} keeps a session pool per
+ * engine and asks the engine to start sessions; the browser names in requests
+ * are engine names.
+ */
+public interface ExecutionEngine {
+
+    /**
+     * Name used in requests and results, e.g. "chrome" or "htmlunit".
+     */
+    String getName();
+
+    /**
+     * Starts a new session. Timeouts are applied by the caller.
+     */
+    WebDriver createDriver();
+
+    /**
+     * Maximum number of concurrent sessions, or 0 to use the pool's max size.
+     */
+    default int getMaxSessions() {
+        return 0;
+    }
+
+    /**
+     * Engine a case is run on instead when this one cannot run it (see
+     * {@link #canRun}), or null when there is none.
+     */
+    default String getFallbackEngine() {
+        return null;
+    }
+
+    /**
+     * Whether cases that fail on this engine are run again on the fallback
+     * engine. Off unless configured: real failures then pay for both engines.
+     */
+    default boolean rerunsFailures() {
+        return false;
+    }
+
+    /**
+     * Whether the case can run on this engine at all; cases it cannot run go
+     * straight to the fallback engine.
+     */
+    default boolean canRun(ExecutionPlan plan) {
+        return true;
+    }
+
+    /**
+     * Implemented by sessions of engines that do not lay out or paint pages.
+     * Waits then use WebDriver's own visibility checks instead of element
+     * geometry, and no screenshots are taken.
+     */
+    interface NonRendering {
+    }
+}
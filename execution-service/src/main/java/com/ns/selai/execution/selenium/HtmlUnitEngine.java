@@ -0,0 +1,117 @@
+package com.ns.selai.execution.selenium;
+
+import com.ns.selai.execution.plan.ExecutionPlan;
+import com.ns.selai.execution.plan.StepAction;
+import lombok.extern.slf4j.Slf4j;
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.WebClientOptions;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * In-JVM browser engine backed by HtmlUnit, for smoke runs against server
+ * rendered pages. Sessions are plain Java objects sharing this process, so many
+ * of them cost a fraction of one Chrome process. Pages are parsed and their
+ * JavaScript runs, but nothing is laid out or painted: there are no
+ * screenshots, and pointer hit testing is not available.
+ * <p>
+ * Cases with actions that need a real browser run on the fallback engine
+ * instead. Rerunning failed cases there is opt-in.
+ */
+@Component
+@Slf4j
+public class HtmlUnitEngine implements ExecutionEngine {
+
+    public static final String NAME = "htmlunit";
+
+    private final BrowserVersion browserVersion;
+    private final Set<StepAction> realBrowserActions = EnumSet.noneOf(StepAction.class);
+    private final String fallbackEngine;
+
+    @Value("${execution.engine.htmlunit.max-sessions:16}")
+    private int maxSessions;
+
+    @Value("${execution.engine.htmlunit.fail-on-script-error:false}")
+    private boolean failOnScriptError;
+
+    @Value("${execution.engine.htmlunit.rerun-failures:false}")
+    private boolean rerunFailures;
+
+    public HtmlUnitEngine(@Value("${execution.engine.htmlunit.emulate:chrome}") String emulate,
+            @Value("${execution.engine.htmlunit.real-browser-actions:scroll}") String realBrowserActions,
+            @Value("${execution.engine.htmlunit.fallback:chrome}") String fallbackEngine) {
+        this.browserVersion = browserVersion(emulate);
+        for (String name : realBrowserActions.split(",")) {
+            StepAction action = StepAction.fromName(name);
+            if (action != null) {
+                this.realBrowserActions.add(action);
+            } else if (!name.isBlank()) {
+                log.warn("Ignoring unknown real browser action '{}'", name);
+            }
+        }
+        this.fallbackEngine = fallbackEngine.isBlank() ? null : fallbackEngine.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public WebDriver createDriver() {
+        Session session = new Session(browserVersion);
+        WebClientOptions options = session.getWebClient().getOptions();
+        // Like a real browser: page script errors and error statuses are the page's problem, not the driver's
+        options.setThrowExceptionOnScriptError(failOnScriptError);
+        options.setThrowExceptionOnFailingStatusCode(false);
+        options.setPrintContentOnFailingStatusCode(false);
+        options.setCssEnabled(true);
+        return session;
+    }
+
+    @Override
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    @Override
+    public String getFallbackEngine() {
+        return fallbackEngine;
+    }
+
+    @Override
+    public boolean rerunsFailures() {
+        return rerunFailures && fallbackEngine != null;
+    }
+
+    @Override
+    public boolean canRun(ExecutionPlan plan) {
+        return plan.steps().stream().noneMatch(step -> realBrowserActions.contains(step.action()));
+    }
+
+    private static BrowserVersion browserVersion(String emulate) {
+        switch (emulate.trim().toLowerCase(Locale.ROOT)) {
+            case "firefox":
+                return BrowserVersion.FIREFOX;
+            case "edge":
+                return BrowserVersion.EDGE;
+            case "chrome":
+                return BrowserVersion.CHROME;
+            default:
+                log.warn("Unknown HtmlUnit browser version '{}', using the best supported one", emulate);
+                return BrowserVersion.BEST_SUPPORTED;
+        }
+    }
+
+    private static final class Session extends HtmlUnitDriver implements ExecutionEngine.NonRendering {
+        private Session(BrowserVersion browserVersion) {
+            super(browserVersion, true);
+        }
+    }
+}
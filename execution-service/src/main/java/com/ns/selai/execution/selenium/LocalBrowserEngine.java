@@ -0,0 +1,59 @@
+package com.ns.selai.execution.selenium;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+
+import java.util.List;
+
+/**
+ * Headless Chrome, Firefox or Edge running as a separate browser process,
+ * with its driver binary set up by WebDriverManager.
+ */
+public class LocalBrowserEngine implements ExecutionEngine {
+
+    public static final List<String> BROWSERS = List.of("chrome", "firefox", "edge");
+
+    private final String browser;
+
+    public LocalBrowserEngine(String browser) {
+        if (!BROWSERS.contains(browser)) {
+            throw new IllegalArgumentException("Unsupported local browser: " + browser);
+        }
+        this.browser = browser;
+    }
+
+    @Override
+    public String getName() {
+        return browser;
+    }
+
+    @Override
+    public WebDriver createDriver() {
+        switch (browser) {
+            case "firefox":
+                WebDriverManager.firefoxdriver().setup();
+                FirefoxOptions firefoxOptions = new FirefoxOptions();
+                firefoxOptions.addArguments("--headless");
+                return new FirefoxDriver(firefoxOptions);
+            case "edge":
+                WebDriverManager.edgedriver().setup();
+                EdgeOptions edgeOptions = new EdgeOptions();
+                edgeOptions.addArguments("--headless");
+                return new EdgeDriver(edgeOptions);
+            default:
+                WebDriverManager.chromedriver().setup();
+                ChromeOptions chromeOptions = new ChromeOptions();
+                chromeOptions.addArguments("--start-maximized");
+                chromeOptions.addArguments("--disable-notifications");
+                chromeOptions.addArguments("--disable-popup-blocking");
+                chromeOptions.addArguments("--headless=new");
+                return new ChromeDriver(chromeOptions);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ns.selai.execution.selenium;
 
+import com.ns.selai.execution.model.ScreenshotReference;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.OutputType;
@@ -8,52 +9,77 @@ import org.openqa.selenium.WebDriver;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
 
 /**
- * Service to capture and save screenshots during test execution
+ * Service to capture and save screenshots during test execution.
+ * <p>
+ * Which steps are captured is decided by the configured policy. Captures are
+ * taken as base64 from the driver and handed to the {@link ScreenshotWriter},
+ * which stores them in the background. Storage is content addressed (see
+ * {@link ScreenshotStore}): identical images are written once, and the returned
+ * path is the path of the shared blob.
  */
 @Service
 @Slf4j
 public class ScreenshotService {
 
-    private WebDriver driver;
-
-    public void setWebDriver(WebDriver driver) {
-        this.driver = driver;
-    }
+    private final ScreenshotWriter screenshotWriter;
+    private final ScreenshotStore screenshotStore;
+    private final Policy policy;
 
     @Value("${screenshot.storage.path:./screenshots}")
     private String screenshotBasePath;
 
-    public String captureScreenshot(String stepName) {
-        return captureScreenshot(this.driver, 0L, stepName);
-    }
+    @Value("${execution.screenshot.every-nth:5}")
+    private int everyNth;
 
-    public String captureScreenshot(WebDriver driver, Long testRunId, String stepName) {
-        try {
-            String testRunDir = screenshotBasePath + "/test-run-" + testRunId;
-            Files.createDirectories(Paths.get(testRunDir));
+    @Value("${execution.screenshot.ring-size:5}")
+    private int ringSize;
 
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS"));
-            String filename = String.format("%s_%s.png", stepName.replaceAll("[^a-zA-Z0-9]", "_"), timestamp);
-            String fullPath = testRunDir + "/" + filename;
+    public ScreenshotService(ScreenshotWriter screenshotWriter,
+            ScreenshotStore screenshotStore,
+            @Value("${execution.screenshot.policy:always}") String policy) {
+        this.screenshotWriter = screenshotWriter;
+        this.screenshotStore = screenshotStore;
+        this.policy = Policy.valueOf(policy.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
 
-            File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-            FileUtils.copyFile(screenshot, new File(fullPath));
+    /**
+     * When screenshots are taken. Failed steps are always captured.
+     */
+    public enum Policy {
+        // After every step
+        ALWAYS,
+        // Only when a step fails
+        ON_FAILURE,
+        // After every n-th step
+        EVERY_NTH,
+        // The last n steps are kept in memory and written only when a step fails
+        LAST_N
+    }
 
-            log.info("Screenshot captured: {}", fullPath);
-            return fullPath;
+    /**
+     * Starts the screenshot state of one test case.
+     */
+    public Session openSession(Long testRunId, String testName) {
+        return new Session(testRunId, testName);
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to capture screenshot: ", e);
-            return null;
-        }
+    /**
+     * Captures a screenshot and queues it for writing, regardless of policy.
+     *
+     * @return the path the screenshot will be written to, or null if it was not captured
+     */
+    public String captureScreenshot(WebDriver driver, Long testRunId, String stepName) {
+        Capture capture = capture(driver, stepName);
+        return capture == null ? null : submit(testRunId, null, 0, capture, true);
     }
 
     public byte[] getScreenshotAsBytes(String screenshotPath) {
@@ -66,7 +92,13 @@ public class ScreenshotService {
         }
     }
 
+    /**
+     * Deletes a run's screenshot references and every blob no other run still
+     * refers to.
+     */
     public void deleteTestRunScreenshots(Long testRunId) {
+        screenshotStore.deleteTestRun(testRunId);
+        // Screenshots written before content-addressed storage
         try {
             String testRunDir = screenshotBasePath + "/test-run-" + testRunId;
             Path path = Paths.get(testRunDir);
@@ -78,4 +110,108 @@ public class ScreenshotService {
             log.error("Failed to delete screenshots: ", e);
         }
     }
+
+    private Capture capture(WebDriver driver, String stepName) {
+        return capture(driver, stepName, 0);
+    }
+
+    private Capture capture(WebDriver driver, String stepName, int stepIndex) {
+        if (!(driver instanceof TakesScreenshot)) {
+            // Engines that do not paint pages, such as HtmlUnit
+            return null;
+        }
+        try {
+            String base64 = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+            return new Capture(stepName, stepIndex, LocalDateTime.now(), base64);
+        } catch (Exception e) {
+            log.error("Failed to capture screenshot: ", e);
+            return null;
+        }
+    }
+
+    private String submit(Long testRunId, String testName, int stepIndex, Capture capture, boolean required) {
+        String hash = ScreenshotStore.hashOf(capture.base64Png());
+        ScreenshotReference reference = ScreenshotReference.builder()
+                .testRunId(testRunId)
+                .testName(testName)
+                .stepIndex(stepIndex)
+                .stepName(capture.stepName())
+                .blobHash(hash)
+                .capturedAt(capture.takenAt())
+                .build();
+        return screenshotWriter.submit(reference, capture.base64Png(), required)
+                ? screenshotStore.blobPath(hash).toString() : null;
+    }
+
+    /**
+     * Screenshot state of one test case: step count for EVERY_NTH and the ring
+     * of recent captures for LAST_N. Used by a single thread.
+     */
+    public final class Session {
+        private final Long testRunId;
+        private final String testName;
+        private final Deque<Capture> recent = new ArrayDeque<>();
+        private int steps;
+
+        private Session(Long testRunId, String testName) {
+            this.testRunId = testRunId;
+            this.testName = testName;
+        }
+
+        /**
+         * Called after a successful step.
+         *
+         * @return the screenshot path if one is written for this step, otherwise null
+         */
+        public String afterSuccess(WebDriver driver, String stepName) {
+            steps++;
+            switch (policy) {
+                case ALWAYS:
+                    return optional(driver, stepName);
+                case EVERY_NTH:
+                    return steps % Math.max(1, everyNth) == 0 ? optional(driver, stepName) : null;
+                case LAST_N:
+                    Capture capture = capture(driver, stepName, steps);
+                    if (capture != null) {
+                        if (recent.size() >= ringSize) {
+                            recent.removeFirst();
+                        }
+                        recent.addLast(capture);
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Called after a failed step: writes any buffered captures, then the
+         * failure screenshot. Both are required, so a saturated writer does not
+         * drop the captures leading up to the failure.
+         *
+         * @return the failure screenshot path, or null if it could not be captured
+         */
+        public String afterFailure(WebDriver driver, String stepName) {
+            steps++;
+            Capture capture;
+            while ((capture = recent.pollFirst()) != null) {
+                submit(testRunId, testName, capture.stepIndex(), capture, true);
+            }
+            capture = capture(driver, stepName, steps);
+            return capture == null ? null : submit(testRunId, testName, steps, capture, true);
+        }
+
+        // Skipped entirely while the writer is saturated, so the capture cost is not paid either
+        private String optional(WebDriver driver, String stepName) {
+            if (screenshotWriter.isSaturated()) {
+                log.debug("Screenshot writer saturated, skipping screenshot for {}", stepName);
+                return null;
+            }
+            Capture capture = capture(driver, stepName, steps);
+            return capture == null ? null : submit(testRunId, testName, steps, capture, false);
+        }
+    }
+
+    private record Capture(String stepName, int stepIndex, LocalDateTime takenAt, String base64Png) {
+    }
 }
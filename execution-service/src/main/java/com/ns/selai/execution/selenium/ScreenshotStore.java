@@ -0,0 +1,157 @@
+package com.ns.selai.execution.selenium;
+
+import com.ns.selai.execution.model.ScreenshotReference;
+import com.ns.selai.execution.repository.ScreenshotReferenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed screenshot storage. Each distinct image is written once as
+ * {@code blobs/<aa>/<hash>.png}; steps point to blobs through
+ * {@link ScreenshotReference} rows, and a blob is deleted when its last
+ * reference goes away.
+ * <p>
+ * Blob writes and garbage collection of the same hash are serialized through
+ * striped locks, and a blob is (re)written after its reference is saved, so a
+ * concurrent collection cannot leave a reference without its blob.
+ */
+@Component
+@Slf4j
+public class ScreenshotStore {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ScreenshotReferenceRepository referenceRepository;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLong blobsWritten = new AtomicLong();
+    private final AtomicLong duplicatesSkipped = new AtomicLong();
+
+    @Value("${screenshot.storage.path:./screenshots}")
+    private String screenshotBasePath;
+
+    public ScreenshotStore(ScreenshotReferenceRepository referenceRepository) {
+        this.referenceRepository = referenceRepository;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Key of an image: the SHA-256 of its base64 encoding as returned by the
+     * driver, so identical screenshots are recognised without decoding them.
+     */
+    public static String hashOf(String base64Png) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(base64Png.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Path blobPath(String hash) {
+        return Paths.get(screenshotBasePath, "blobs", hash.substring(0, 2), hash + ".png");
+    }
+
+    /**
+     * Records the reference, then writes the blob unless an identical image is
+     * already stored.
+     */
+    public void store(ScreenshotReference reference, String base64Png) throws IOException {
+        referenceRepository.save(reference);
+        String hash = reference.getBlobHash();
+        synchronized (lockFor(hash)) {
+            Path blob = blobPath(hash);
+            if (Files.exists(blob)) {
+                duplicatesSkipped.incrementAndGet();
+                log.debug("Screenshot {} already stored, skipping write", hash);
+                return;
+            }
+            write(blob, Base64.getMimeDecoder().decode(base64Png));
+            blobsWritten.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes a run's references and deletes blobs no other run refers to.
+     *
+     * @return number of blobs deleted
+     */
+    public int deleteTestRun(Long testRunId) {
+        List<String> hashes = referenceRepository.findBlobHashesByTestRunId(testRunId);
+        referenceRepository.deleteByTestRunId(testRunId);
+        int deleted = 0;
+        for (String hash : hashes) {
+            synchronized (lockFor(hash)) {
+                if (referenceRepository.countByBlobHash(hash) > 0) {
+                    continue;
+                }
+                try {
+                    if (Files.deleteIfExists(blobPath(hash))) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.error("Failed to delete screenshot blob {}: ", hash, e);
+                }
+            }
+        }
+        log.info("Removed {} screenshot references of test run {}, deleted {} unreferenced blobs", hashes.size(),
+                testRunId, deleted);
+        return deleted;
+    }
+
+    public long getBlobsWritten() {
+        return blobsWritten.get();
+    }
+
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped.get();
+    }
+
+    // Written to a temporary file and moved into place, so a blob is never seen half written
+    private static void write(Path blob, byte[] png) throws IOException {
+        Files.createDirectories(blob.getParent());
+        Path temp = Files.createTempFile(blob.getParent(), blob.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(png);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, blob);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // Written by another node sharing the storage
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+}
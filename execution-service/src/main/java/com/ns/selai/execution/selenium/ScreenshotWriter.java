@@ -0,0 +1,138 @@
+package com.ns.selai.execution.selenium;
+
+import com.ns.selai.execution.model.ScreenshotReference;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores screenshots on the screenshotWriterExecutor so that steps only pay
+ * for the capture itself; decoding and writing happen in {@link ScreenshotStore}.
+ * The executor queue is bounded and never blocks the caller: when it is full,
+ * an optional screenshot is dropped, and a failure screenshot evicts a queued
+ * optional one to make room.
+ */
+@Component
+@Slf4j
+public class ScreenshotWriter {
+
+    private final ScreenshotStore screenshotStore;
+    private final ThreadPoolTaskExecutor executor;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Value("${execution.screenshot.writer.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${execution.screenshot.writer.saturation-percent:75}")
+    private int saturationPercent;
+
+    public ScreenshotWriter(ScreenshotStore screenshotStore,
+                            @Qualifier("screenshotWriterExecutor") ThreadPoolTaskExecutor executor) {
+        this.screenshotStore = screenshotStore;
+        this.executor = executor;
+    }
+
+    /**
+     * Writes the queued screenshots while the store is still available; the
+     * executor waits for them up to its await-termination timeout.
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+        int left = queue().size();
+        if (left > 0) {
+            log.warn("Discarding {} screenshots that were not written before shutdown", left);
+        }
+    }
+
+    /**
+     * Queues a base64 encoded PNG and its step reference for storing.
+     *
+     * @param required failure screenshots; these displace optional ones when the queue is full
+     * @return whether the screenshot was accepted
+     */
+    public boolean submit(ScreenshotReference reference, String base64Png, boolean required) {
+        WriteTask task = new WriteTask(reference, base64Png, required);
+        if (offer(task)) {
+            return true;
+        }
+        if (required && evictOptional() && offer(task)) {
+            return true;
+        }
+        long total = dropped.incrementAndGet();
+        log.warn("Screenshot writer is full, dropped screenshot of {} ({} dropped so far)", reference.getStepName(),
+                total);
+        return false;
+    }
+
+    /**
+     * Whether the queue is filling up; optional captures should be skipped
+     * while this is true so the capture cost is not paid either.
+     */
+    public boolean isSaturated() {
+        return queue().size() * 100 >= queueCapacity * saturationPercent;
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private boolean offer(WriteTask task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    private boolean evictOptional() {
+        for (Runnable queued : queue()) {
+            if (queued instanceof WriteTask task && !task.required && queue().remove(task)) {
+                dropped.incrementAndGet();
+                log.debug("Evicted optional screenshot of {} for a failure screenshot", task.reference.getStepName());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BlockingQueue<Runnable> queue() {
+        return executor.getThreadPoolExecutor().getQueue();
+    }
+
+    private final class WriteTask implements Runnable {
+
+        private final ScreenshotReference reference;
+        private final String base64Png;
+        private final boolean required;
+
+        private WriteTask(ScreenshotReference reference, String base64Png, boolean required) {
+            this.reference = reference;
+            this.base64Png = base64Png;
+            this.required = required;
+        }
+
+        @Override
+        public void run() {
+            try {
+                screenshotStore.store(reference, base64Png);
+                written.incrementAndGet();
+            } catch (Exception e) {
+                log.error("Failed to store screenshot {}: ", reference.getBlobHash(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.ns.selai.execution.selenium;
+
+import com.ns.selai.execution.model.HealedLocator;
+import com.ns.selai.execution.plan.PlanCompiler;
+import com.ns.selai.execution.repository.HealedLocatorRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds a replacement when a selector no longer matches. Candidates are tried in
+ * rank order: attribute matches (id, name, test ids, labels), visible text, then
+ * structural relaxations of the original selector. The first candidate matching
+ * exactly one element wins and is stored per (page, selector), so later runs go
+ * straight to the healed selector.
+ * <p>
+ * Only interaction steps are healed. An assertion answered by a replacement
+ * element, in particular one found by the text being asserted, would pass by
+ * construction.
+ */
+@Component
+@Slf4j
+public class SelectorHealer {
+
+    private static final String[] IDENTITY_ATTRIBUTES = {"id", "name", "data-testid", "data-test", "data-qa",
+            "aria-label", "placeholder", "title"};
+    private static final Pattern CSS_ID = Pattern.compile("#([\\w-]+)");
+    private static final Pattern CSS_CLASS = Pattern.compile("\\.([\\w-]+)");
+    private static final Pattern CSS_ATTRIBUTE = Pattern.compile(
+            "\\[\\s*([\\w-]+)\\s*[*^$~|]?=\\s*['\"]?([^'\"\\]]+)['\"]?\\s*]");
+    private static final Pattern CSS_TAG = Pattern.compile("^([a-zA-Z][\\w-]*)");
+    private static final Pattern XPATH_ATTRIBUTE = Pattern.compile("@([\\w-]+)\\s*=\\s*['\"]([^'\"]+)['\"]");
+    private static final Pattern XPATH_TEXT = Pattern.compile(
+            "(?:text\\(\\)|\\.)\\s*(?:=|,)\\s*['\"]([^'\"]+)['\"]");
+    private static final Pattern XPATH_TAG = Pattern.compile("/([a-zA-Z][\\w-]*)(?:\\[[^\\]]*])*\\s*$");
+    private static final Pattern XPATH_POSITION = Pattern.compile("\\[\\d+]");
+    private static final Pattern CSS_POSITION = Pattern.compile(":(?:nth-child|nth-of-type|first-child|last-child"
+            + "|first-of-type|last-of-type)(?:\\([^)]*\\))?");
+    private static final String UPPER = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String LOWER = "abcdefghijklmnopqrstuvwxyz";
+    private static final Optional<String> NOT_HEALED = Optional.empty();
+    private static final String TEXT_STRATEGY = "text";
+
+    private final HealedLocatorRepository healedLocatorRepository;
+    private final WaitEngine waitEngine;
+    private final Map<String, Optional<String>> cache = new ConcurrentHashMap<>();
+
+    @Value("${execution.healing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${execution.healing.healed-probe-seconds:2}")
+    private long healedProbeSeconds;
+
+    @Value("${execution.healing.max-candidates:40}")
+    private int maxCandidates;
+
+    @Value("${execution.healing.max-cached:10000}")
+    private int maxCached;
+
+    public SelectorHealer(HealedLocatorRepository healedLocatorRepository, WaitEngine waitEngine) {
+        this.healedLocatorRepository = healedLocatorRepository;
+        this.waitEngine = waitEngine;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the stored replacement for a selector on a page, if any.
+     */
+    public Optional<String> lookup(String pageUrl, String selector) {
+        String page = pageKey(pageUrl);
+        String key = cacheKey(page, selector);
+        Optional<String> healed = cache.get(key);
+        if (healed == null) {
+            healed = healedLocatorRepository.findByPageUrlAndOriginalSelector(page, selector)
+                    .map(HealedLocator::getHealedSelector);
+            remember(key, healed);
+        }
+        return healed;
+    }
+
+    /**
+     * Waits briefly for a healed selector, out of the step's budget. Returns
+     * null if it no longer matches.
+     */
+    public WebElement probe(WebDriver driver, String healedSelector, WaitEngine.WaitBudget budget) {
+        return waitEngine.presentWithin(driver, locatorFor(healedSelector), Duration.ofSeconds(healedProbeSeconds),
+                budget);
+    }
+
+    /**
+     * Drops a stored replacement that stopped matching as well.
+     */
+    public void forget(String pageUrl, String selector) {
+        String page = pageKey(pageUrl);
+        remember(cacheKey(page, selector), NOT_HEALED);
+        healedLocatorRepository.deleteByPageUrlAndOriginalSelector(page, selector);
+    }
+
+    /**
+     * Tries the ranked fallback strategies for a selector that did not match.
+     * The winning replacement is persisted. Returns null if nothing matched
+     * exactly one element.
+     */
+    public HealResult heal(WebDriver driver, String pageUrl, String selector) {
+        List<Candidate> candidates = candidatesFor(selector);
+        HealResult result = null;
+        int tried = 0;
+        for (Candidate candidate : candidates) {
+            if (tried++ >= maxCandidates || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                List<WebElement> matches = driver.findElements(locatorFor(candidate.selector()));
+                if (matches.size() == 1) {
+                    result = new HealResult(candidate.selector(), candidate.strategy(), matches.get(0));
+                    break;
+                }
+            } catch (Exception e) {
+                log.debug("Healing candidate '{}' is not usable: {}", candidate.selector(), e.getMessage());
+            }
+        }
+        if (result == null) {
+            log.info("No replacement found for selector '{}' after {} candidates", selector,
+                    Math.min(candidates.size(), maxCandidates));
+            return null;
+        }
+
+        log.warn("Healed selector '{}' -> '{}' using {} strategy", selector, result.selector(), result.strategy());
+        store(pageKey(pageUrl), selector, result);
+        return result;
+    }
+
+    static By locatorFor(String selector) {
+        return PlanCompiler.isXPath(selector) ? By.xpath(selector) : By.cssSelector(selector);
+    }
+
+    private void store(String page, String selector, HealResult result) {
+        remember(cacheKey(page, selector), Optional.of(result.selector()));
+        try {
+            HealedLocator healed = healedLocatorRepository.findByPageUrlAndOriginalSelector(page, selector)
+                    .orElseGet(() -> HealedLocator.builder().pageUrl(page).originalSelector(selector).build());
+            healed.setHealedSelector(result.selector());
+            healed.setStrategy(result.strategy());
+            healedLocatorRepository.save(healed);
+        } catch (DataIntegrityViolationException e) {
+            // Another test case healed the same selector concurrently
+            log.debug("Healed selector for '{}' was stored concurrently", selector);
+        }
+    }
+
+    private void remember(String key, Optional<String> healed) {
+        if (cache.size() >= maxCached) {
+            cache.clear();
+        }
+        cache.put(key, healed);
+    }
+
+    private List<Candidate> candidatesFor(String selector) {
+        boolean xpath = PlanCompiler.isXPath(selector);
+        String tag = null;
+        Set<String> values = new LinkedHashSet<>();
+        Set<String> classes = new LinkedHashSet<>();
+        Set<String> texts = new LinkedHashSet<>();
+
+        if (xpath) {
+            Matcher tagMatcher = XPATH_TAG.matcher(selector);
+            if (tagMatcher.find()) {
+                tag = tagMatcher.group(1);
+            }
+            collect(XPATH_ATTRIBUTE, selector, values, classes);
+            Matcher text = XPATH_TEXT.matcher(selector);
+            while (text.find()) {
+                texts.add(text.group(1).trim());
+            }
+        } else {
+            String last = lastCompound(selector);
+            Matcher tagMatcher = CSS_TAG.matcher(last);
+            if (tagMatcher.find()) {
+                tag = tagMatcher.group(1);
+            }
+            Matcher id = CSS_ID.matcher(last);
+            while (id.find()) {
+                values.add(id.group(1));
+            }
+            Matcher cls = CSS_CLASS.matcher(last.replaceAll("\\[[^\\]]*]", ""));
+            while (cls.find()) {
+                classes.add(cls.group(1));
+            }
+            collect(CSS_ATTRIBUTE, last, values, classes);
+        }
+        for (String value : values) {
+            texts.add(humanize(value));
+        }
+
+        String element = tag != null ? tag : "*";
+        String cssTag = tag != null ? tag : "";
+        List<Candidate> candidates = new ArrayList<>();
+
+        // 1. Attributes: the identifying value under another attribute, then partial matches
+        for (String value : values) {
+            if (value.contains("'")) {
+                continue;
+            }
+            for (String attribute : IDENTITY_ATTRIBUTES) {
+                candidates.add(new Candidate(cssTag + "[" + attribute + "='" + value + "']", "attribute"));
+            }
+        }
+        for (String value : values) {
+            if (value.contains("'")) {
+                continue;
+            }
+            for (String attribute : new String[]{"id", "name", "data-testid"}) {
+                candidates.add(new Candidate(cssTag + "[" + attribute + "*='" + value + "']", "attribute"));
+            }
+        }
+        for (String cls : classes) {
+            candidates.add(new Candidate(cssTag + "." + cls, "attribute"));
+        }
+
+        // 2. Text: exact visible text, then case-insensitive containment
+        for (String text : texts) {
+            if (text.isEmpty() || text.contains("'")) {
+                continue;
+            }
+            candidates.add(new Candidate("//" + element + "[normalize-space(.)='" + text + "']", TEXT_STRATEGY));
+            candidates.add(new Candidate("//" + element + "[@value='" + text + "']", TEXT_STRATEGY));
+            String lower = text.toLowerCase(Locale.ROOT);
+            candidates.add(new Candidate("//" + element + "[contains(translate(normalize-space(.), '" + UPPER
+                    + "', '" + LOWER + "'), '" + lower + "')]", TEXT_STRATEGY));
+        }
+
+        // 3. Structure: the original path without positions, then the last element under its parent
+        String relaxed = xpath ? XPATH_POSITION.matcher(selector).replaceAll("")
+                : CSS_POSITION.matcher(selector).replaceAll("");
+        if (!relaxed.equals(selector)) {
+            candidates.add(new Candidate(relaxed, "structure"));
+        }
+        if (!xpath && tag != null) {
+            String parent = selector.substring(0, selector.length() - lastCompound(selector).length()).trim();
+            parent = parent.replaceAll("[>+~]\\s*$", "").trim();
+            if (!parent.isEmpty()) {
+                candidates.add(new Candidate(parent + " " + tag, "structure"));
+            }
+        } else if (xpath && tag != null) {
+            int lastStep = selector.lastIndexOf('/');
+            if (lastStep > 0 && selector.charAt(lastStep - 1) != '/') {
+                candidates.add(new Candidate(selector.substring(0, lastStep) + "//" + tag, "structure"));
+            }
+        }
+        return candidates;
+    }
+
+    private static void collect(Pattern pattern, String selector, Set<String> values, Set<String> classes) {
+        Matcher attribute = pattern.matcher(selector);
+        while (attribute.find()) {
+            String name = attribute.group(1);
+            String value = attribute.group(2).trim();
+            if ("class".equals(name)) {
+                for (String cls : value.split("\\s+")) {
+                    if (!cls.isEmpty()) {
+                        classes.add(cls);
+                    }
+                }
+            } else if (!"type".equals(name) && !"href".equals(name) && !"src".equals(name)) {
+                values.add(value);
+            }
+        }
+    }
+
+    // Last compound selector of a CSS selector, e.g. "button.submit" for "form#login > button.submit"
+    private static String lastCompound(String selector) {
+        int depth = 0;
+        for (int i = selector.length() - 1; i >= 0; i--) {
+            char c = selector.charAt(i);
+            if (c == ']' || c == ')') {
+                depth++;
+            } else if (c == '[' || c == '(') {
+                depth--;
+            } else if (depth == 0 && (Character.isWhitespace(c) || c == '>' || c == '+' || c == '~')) {
+                return selector.substring(i + 1).trim();
+            }
+        }
+        return selector.trim();
+    }
+
+    // "login-submit_btn" -> "login submit btn"
+    private static String humanize(String value) {
+        return value.replaceAll("([a-z])([A-Z])", "$1 $2").replaceAll("[-_]+", " ").trim();
+    }
+
+    private static String pageKey(String pageUrl) {
+        if (pageUrl == null) {
+            return "";
+        }
+        try {
+            URI uri = URI.create(pageUrl);
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                return pageUrl;
+            }
+            String port = uri.getPort() == -1 ? "" : ":" + uri.getPort();
+            String path = uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath();
+            return uri.getScheme() + "://" + uri.getHost() + port + path;
+        } catch (IllegalArgumentException e) {
+            return pageUrl;
+        }
+    }
+
+    private static String cacheKey(String page, String selector) {
+        return page + '\n' + selector;
+    }
+
+    public record HealResult(String selector, String strategy, WebElement element) {
+    }
+
+    private record Candidate(String selector, String strategy) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.ns.selai.execution.selenium;
+
+import com.ns.selai.execution.plan.PlanCompiler;
+import com.ns.selai.execution.plan.PlannedStep;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs consecutive type, clear, assert_text and assert_element_present steps in
+ * a single script call instead of several WebDriver round trips per step. The
+ * script is a fast path only: it stops at the first step it cannot complete
+ * right away (element missing, hidden or not editable, text not matching yet,
+ * script error), and that step and the rest run through the normal path with
+ * its waits, selector healing and error reporting.
+ * <p>
+ * Typing sets the value through the native setter and fires input and change
+ * events, which is what frameworks listen to; per-key events are not fired.
+ */
+@Component
+@Slf4j
+public class StepBatcher {
+
+    private static final String BATCH_SCRIPT = """
+            var steps = arguments[0], results = [];
+            var TEXT_TYPES = ['', 'text', 'email', 'password', 'search', 'tel', 'url', 'number'];
+            function find(s) {
+              if (s.xpath) {
+                return document.evaluate(s.selector, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null)
+                    .singleNodeValue;
+              }
+              return document.querySelector(s.selector);
+            }
+            function visible(el) {
+              var style = window.getComputedStyle(el), rect = el.getBoundingClientRect();
+              return style.visibility !== 'hidden' && style.display !== 'none' && rect.width > 0 && rect.height > 0;
+            }
+            function editable(el) {
+              var textInput = el instanceof HTMLTextAreaElement || (el instanceof HTMLInputElement
+                  && TEXT_TYPES.indexOf((el.getAttribute('type') || '').toLowerCase()) >= 0);
+              return textInput && !el.disabled && !el.readOnly && visible(el);
+            }
+            function setValue(el, value) {
+              var proto = el instanceof HTMLTextAreaElement ? HTMLTextAreaElement.prototype : HTMLInputElement.prototype;
+              el.focus();
+              Object.getOwnPropertyDescriptor(proto, 'value').set.call(el, value);
+              el.dispatchEvent(new Event('input', {bubbles: true}));
+              el.dispatchEvent(new Event('change', {bubbles: true}));
+              return el.value === value;
+            }
+            for (var i = 0; i < steps.length; i++) {
+              var s = steps[i], start = performance.now(), reason = null;
+              try {
+                var el = find(s);
+                if (!el) {
+                  reason = 'element not present';
+                } else if (s.action === 'assert_text' || s.action === 'assert_element_present') {
+                  // Hidden elements have no visible text; the normal path decides about those
+                  if (!visible(el)) reason = 'element is not visible';
+                  else if (s.action === 'assert_text' && (el.innerText || '').indexOf(s.value) < 0) {
+                    reason = 'text does not match yet';
+                  }
+                } else if (s.action === 'clear' || s.action === 'type') {
+                  if (!editable(el)) reason = 'element is not an editable text field';
+                  else if (s.action === 'type' && el.maxLength >= 0 && s.value.length > el.maxLength) {
+                    reason = 'value exceeds maxlength';
+                  } else if (!setValue(el, s.action === 'type' ? s.value : '')) reason = 'value was rejected';
+                }
+              } catch (e) {
+                reason = String(e);
+              }
+              results.push({ok: reason === null, reason: reason, ms: performance.now() - start});
+              if (reason !== null) break;
+            }
+            return results;
+            """;
+
+    private final SelectorHealer selectorHealer;
+
+    @Value("${execution.batching.enabled:true}")
+    private boolean enabled;
+
+    @Value("${execution.batching.min-steps:2}")
+    private int minSteps;
+
+    public StepBatcher(SelectorHealer selectorHealer) {
+        this.selectorHealer = selectorHealer;
+    }
+
+    /**
+     * Number of consecutive steps from {@code start} that can run as one batch,
+     * or 0 when the run is too short to be worth a batch.
+     */
+    public int batchLength(List<PlannedStep> steps, int start) {
+        if (!enabled) {
+            return 0;
+        }
+        int end = start;
+        while (end < steps.size() && isBatchable(steps.get(end))) {
+            end++;
+        }
+        return end - start >= minSteps ? end - start : 0;
+    }
+
+    /**
+     * Runs the steps in one script call. Returns the results of the steps that
+     * completed, in order; the caller runs the remaining steps normally.
+     */
+    public List<StepExecutor.StepResult> execute(WebDriver driver, List<PlannedStep> steps,
+            ScreenshotService.Session screenshots) {
+        long startTime = System.currentTimeMillis();
+        String pageUrl = selectorHealer.isEnabled() ? driver.getCurrentUrl() : null;
+        List<Map<String, Object>> arguments = new ArrayList<>(steps.size());
+        for (PlannedStep step : steps) {
+            String selector = pageUrl != null && !step.action().isAssertion()
+                    ? selectorHealer.lookup(pageUrl, step.selector()).orElse(step.selector())
+                    : step.selector();
+            Map<String, Object> argument = new HashMap<>();
+            argument.put("action", step.action().getName());
+            argument.put("selector", selector);
+            argument.put("xpath", PlanCompiler.isXPath(selector));
+            argument.put("value", valueOf(step));
+            arguments.add(argument);
+        }
+
+        List<?> outcomes;
+        try {
+            outcomes = (List<?>) ((JavascriptExecutor) driver).executeScript(BATCH_SCRIPT, arguments);
+        } catch (Exception e) {
+            log.debug("Batch script failed, running {} steps individually: {}", steps.size(), e.getMessage());
+            return List.of();
+        }
+
+        List<StepExecutor.StepResult> results = new ArrayList<>();
+        for (int i = 0; i < outcomes.size(); i++) {
+            Map<?, ?> outcome = (Map<?, ?>) outcomes.get(i);
+            if (!Boolean.TRUE.equals(outcome.get("ok"))) {
+                log.debug("Batch stopped at step {} ({}): {}", i + 1, steps.get(i).action().getName(),
+                        outcome.get("reason"));
+                break;
+            }
+            PlannedStep step = steps.get(i);
+            results.add(StepExecutor.StepResult.builder()
+                    .action(step.action().getName())
+                    .selector(step.selector())
+                    .success(true)
+                    .message("Step executed successfully")
+                    .executionTimeMs(Math.round(((Number) outcome.get("ms")).doubleValue()))
+                    .waitTimeMs(0L)
+                    .build());
+        }
+
+        if (!results.isEmpty()) {
+            StepExecutor.StepResult last = results.get(results.size() - 1);
+            last.setScreenshotPath(screenshots.afterSuccess(driver, last.getAction()));
+            log.debug("Ran {} of {} batched steps in one script call ({}ms)", results.size(), steps.size(),
+                    System.currentTimeMillis() - startTime);
+        }
+        return results;
+    }
+
+    private static boolean isBatchable(PlannedStep step) {
+        if (step instanceof PlannedStep.Type type) {
+            return !hasSpecialKeys(type.value());
+        }
+        return step instanceof PlannedStep.Clear
+                || step instanceof PlannedStep.AssertText
+                || step instanceof PlannedStep.AssertElementPresent;
+    }
+
+    private static String valueOf(PlannedStep step) {
+        if (step instanceof PlannedStep.Type type) {
+            return type.value();
+        }
+        if (step instanceof PlannedStep.AssertText assertText) {
+            return assertText.expectedText();
+        }
+        return null;
+    }
+
+    // Selenium Keys (Enter, Tab, ...) are private-use characters that only sendKeys understands
+    private static boolean hasSpecialKeys(String value) {
+        return value.chars().anyMatch(c -> c >= '\uE000' && c <= '\uF8FF');
+    }
+}
@@ -1,6 +1,7 @@
 package com.ns.selai.execution.selenium;
 
-import com.ns.selai.execution.dto.ExecutionRequest;
+import com.ns.selai.execution.plan.ExecutionPlan;
+import com.ns.selai.execution.plan.PlannedStep;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,13 +9,13 @@ import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.*;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Executes individual Selenium test steps
@@ -25,158 +26,218 @@ import java.util.List;
 public class StepExecutor {
 
     private final ScreenshotService screenshotService;
-    private WebDriver driver;
+    private final SelectorHealer selectorHealer;
+    private final WaitEngine waitEngine;
+    private final StepBatcher stepBatcher;
 
-    public void setWebDriver(WebDriver driver) {
-        this.driver = driver;
-    }
+    /**
+     * Executes the steps of a compiled test case on the given driver, stopping at
+     * the first failed step. Runs of DOM-only steps go through the batcher first;
+     * whatever it could not complete runs step by step. The executor holds no
+     * per-driver state, so different test cases can run concurrently on separate
+     * sessions.
+     */
+    public List<StepResult> executeSteps(WebDriver driver, ExecutionPlan plan, Long testRunId) {
+        List<PlannedStep> steps = plan.steps();
+        ScreenshotService.Session screenshots = screenshotService.openSession(testRunId, plan.name());
+        List<StepResult> results = new ArrayList<>();
+        int index = 0;
+        int batchStoppedAt = -1;
+        while (index < steps.size()) {
+            PlannedStep step = steps.get(index);
+            if (Thread.currentThread().isInterrupted()) {
+                log.info("Stopping test case before step {}: execution was interrupted", step.action().getName());
+                break;
+            }
 
-    public void executeSteps(List<ExecutionRequest.TestStep> steps) {
-        for (ExecutionRequest.TestStep step : steps) {
-            executeStep(this.driver, step, 0L);
+            int batchLength = index == batchStoppedAt ? 0 : stepBatcher.batchLength(steps, index);
+            if (batchLength > 0) {
+                List<StepResult> batched = stepBatcher.execute(driver, steps.subList(index, index + batchLength),
+                        screenshots);
+                results.addAll(batched);
+                index += batched.size();
+                // The step the batch stopped at runs on the normal path
+                batchStoppedAt = index;
+                continue;
+            }
+
+            StepResult result = executeStep(driver, step, screenshots);
+            results.add(result);
+            if (!result.isSuccess()) {
+                break;
+            }
+            index++;
         }
+        return results;
     }
 
-    public StepResult executeStep(WebDriver driver, ExecutionRequest.TestStep step, Long testRunId) {
-        log.info("Executing step: {} - {}", step.getAction(), step.getSelector());
+    public StepResult executeStep(WebDriver driver, PlannedStep step, Long testRunId) {
+        return executeStep(driver, step, screenshotService.openSession(testRunId, null));
+    }
+
+    private StepResult executeStep(WebDriver driver, PlannedStep step, ScreenshotService.Session screenshots) {
+        String action = step.action().getName();
+        log.info("Executing step: {} - {}", action, step.selector());
 
         long startTime = System.currentTimeMillis();
         StepResult result = new StepResult();
-        result.setAction(step.getAction());
-        result.setSelector(step.getSelector());
+        result.setAction(action);
+        result.setSelector(step.selector());
+        WaitEngine.WaitBudget budget = waitEngine.budgetFor(step);
 
         try {
-            switch (step.getAction().toLowerCase()) {
-                case "open_url":
-                    executeOpenUrl(driver, step.getUrl());
-                    break;
-                case "click":
-                    executeClick(driver, step.getSelector());
-                    break;
-                case "type":
-                    executeType(driver, step.getSelector(), step.getValue());
-                    break;
-                case "submit":
-                    executeSubmit(driver, step.getSelector());
-                    break;
-                case "wait":
-                    executeWait(step.getValue());
-                    break;
-                case "assert_text":
-                    executeAssertText(driver, step.getSelector(), step.getExpectedText());
-                    break;
-                case "assert_element_present":
-                    executeAssertElementPresent(driver, step.getSelector());
-                    break;
-                case "scroll":
-                    executeScroll(driver, step.getSelector());
-                    break;
-                case "select_dropdown":
-                    executeSelectDropdown(driver, step.getSelector(), step.getValue());
-                    break;
-                case "clear":
-                    executeClear(driver, step.getSelector());
-                    break;
-                default:
-                    throw new UnsupportedOperationException("Unknown action: " + step.getAction());
+            if (step instanceof PlannedStep.OpenUrl openUrl) {
+                executeOpenUrl(driver, openUrl.url(), budget);
+            } else if (step instanceof PlannedStep.Click click) {
+                executeClick(driver, click.target(), budget);
+            } else if (step instanceof PlannedStep.Type type) {
+                executeType(driver, type.target(), type.value(), budget);
+            } else if (step instanceof PlannedStep.Submit submit) {
+                executeSubmit(driver, submit.target(), budget);
+            } else if (step instanceof PlannedStep.Wait wait) {
+                executeWait(driver, wait.duration(), budget);
+            } else if (step instanceof PlannedStep.AssertText assertText) {
+                executeAssertText(driver, assertText.target(), assertText.expectedText(), budget);
+            } else if (step instanceof PlannedStep.AssertElementPresent assertPresent) {
+                executeAssertElementPresent(driver, assertPresent.target(), budget);
+            } else if (step instanceof PlannedStep.Scroll scroll) {
+                executeScroll(driver, scroll.target(), budget);
+            } else if (step instanceof PlannedStep.SelectDropdown selectDropdown) {
+                executeSelectDropdown(driver, selectDropdown.target(), selectDropdown.value(), budget);
+            } else if (step instanceof PlannedStep.Clear clear) {
+                executeClear(driver, clear.target(), budget);
+            } else {
+                throw new UnsupportedOperationException("Unknown action: " + action);
             }
 
             result.setSuccess(true);
             result.setMessage("Step executed successfully");
 
-            String screenshotPath = screenshotService.captureScreenshot(driver, testRunId, step.getAction());
-            result.setScreenshotPath(screenshotPath);
+            result.setScreenshotPath(screenshots.afterSuccess(driver, action));
 
-        } catch (Exception e) {
-            log.error("Step execution failed: ", e);
+        } catch (Exception | AssertionError e) {
             result.setSuccess(false);
             result.setMessage(e.getMessage());
             result.setErrorType(e.getClass().getSimpleName());
+            if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                // Cancelled: keep the interrupt visible to the caller and skip the error screenshot
+                Thread.currentThread().interrupt();
+                result.setWaitTimeMs(budget.getWaitedMillis());
+                result.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+                return result;
+            }
+            log.error("Step execution failed: ", e);
 
             try {
-                String errorScreenshot = screenshotService.captureScreenshot(driver, testRunId,
-                        step.getAction() + "_ERROR");
-                result.setScreenshotPath(errorScreenshot);
+                result.setScreenshotPath(screenshots.afterFailure(driver, action + "_ERROR"));
             } catch (Exception screenshotError) {
                 log.error("Failed to capture error screenshot: ", screenshotError);
             }
         }
 
         long executionTime = System.currentTimeMillis() - startTime;
+        result.setWaitTimeMs(budget.getWaitedMillis());
         result.setExecutionTimeMs(executionTime);
 
         return result;
     }
 
-    private void executeOpenUrl(WebDriver driver, String url) {
+    private void executeOpenUrl(WebDriver driver, String url, WaitEngine.WaitBudget budget) {
         driver.get(url);
+        waitEngine.pageSettled(driver, waitEngine.getPageSettleTimeout(), budget);
     }
 
-    private void executeClick(WebDriver driver, String selector) {
-        WebElement element = findElement(driver, selector);
-        scrollToElement(driver, element);
-        element.click();
+    private void executeClick(WebDriver driver, PlannedStep.Target target, WaitEngine.WaitBudget budget) {
+        WebElement element = findElement(driver, target, budget);
+        waitEngine.actionable(driver, element, true, budget).click();
     }
 
-    private void executeType(WebDriver driver, String selector, String value) {
-        WebElement element = findElement(driver, selector);
-        scrollToElement(driver, element);
+    private void executeType(WebDriver driver, PlannedStep.Target target, String value,
+            WaitEngine.WaitBudget budget) {
+        WebElement element = findElement(driver, target, budget);
+        waitEngine.actionable(driver, element, false, budget);
         element.clear();
         element.sendKeys(value);
     }
 
-    private void executeSubmit(WebDriver driver, String selector) {
-        WebElement element = findElement(driver, selector);
-        element.submit();
+    private void executeSubmit(WebDriver driver, PlannedStep.Target target, WaitEngine.WaitBudget budget) {
+        WebElement element = findElement(driver, target, budget);
+        waitEngine.actionable(driver, element, false, budget).submit();
     }
 
-    private void executeWait(String seconds) throws InterruptedException {
-        int waitTime = Integer.parseInt(seconds);
-        Thread.sleep(waitTime * 1000L);
+    /**
+     * Waits until the page settles (DOM quiet, no pending requests), for at most
+     * the given duration, instead of always sleeping for all of it.
+     */
+    private void executeWait(WebDriver driver, Duration duration, WaitEngine.WaitBudget budget) {
+        waitEngine.pageSettled(driver, duration, budget);
     }
 
-    private void executeAssertText(WebDriver driver, String selector, String expectedText) {
-        WebElement element = findElement(driver, selector);
-        String actualText = element.getText();
-        if (!actualText.contains(expectedText)) {
-            throw new AssertionError(
-                    String.format("Text mismatch. Expected: '%s', Actual: '%s'", expectedText, actualText));
-        }
+    private void executeAssertText(WebDriver driver, PlannedStep.Target target, String expectedText,
+            WaitEngine.WaitBudget budget) {
+        WebElement element = waitEngine.present(driver, target.locator(), budget);
+        waitEngine.textContains(element, expectedText, budget);
     }
 
-    private void executeAssertElementPresent(WebDriver driver, String selector) {
-        findElement(driver, selector);
+    private void executeAssertElementPresent(WebDriver driver, PlannedStep.Target target,
+            WaitEngine.WaitBudget budget) {
+        waitEngine.present(driver, target.locator(), budget);
     }
 
-    private void executeScroll(WebDriver driver, String selector) {
-        WebElement element = findElement(driver, selector);
-        scrollToElement(driver, element);
+    private void executeScroll(WebDriver driver, PlannedStep.Target target, WaitEngine.WaitBudget budget) {
+        WebElement element = findElement(driver, target, budget);
+        ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block: 'center'});", element);
+        waitEngine.actionable(driver, element, false, budget);
     }
 
-    private void executeSelectDropdown(WebDriver driver, String selector, String value) {
-        WebElement element = findElement(driver, selector);
-        Select select = new Select(element);
+    private void executeSelectDropdown(WebDriver driver, PlannedStep.Target target, String value,
+            WaitEngine.WaitBudget budget) {
+        WebElement element = findElement(driver, target, budget);
+        Select select = new Select(waitEngine.actionable(driver, element, false, budget));
         select.selectByVisibleText(value);
     }
 
-    private void executeClear(WebDriver driver, String selector) {
-        WebElement element = findElement(driver, selector);
-        element.clear();
+    private void executeClear(WebDriver driver, PlannedStep.Target target, WaitEngine.WaitBudget budget) {
+        WebElement element = findElement(driver, target, budget);
+        waitEngine.actionable(driver, element, false, budget).clear();
     }
 
-    private WebElement findElement(WebDriver driver, String selector) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-        By locator = (selector.startsWith("//") || selector.startsWith("(")) ? By.xpath(selector)
-                : By.cssSelector(selector);
-        return wait.until(ExpectedConditions.presenceOfElementLocated(locator));
-    }
+    /**
+     * Locates the element of an interaction step, using a previously healed
+     * replacement when one is stored for this page and selector. When the
+     * selector times out, the healer's fallback strategies are tried before
+     * the step fails. Assertions do not come through here: they look up their
+     * selector as written, so a healed element can never make them pass.
+     */
+    private WebElement findElement(WebDriver driver, PlannedStep.Target target, WaitEngine.WaitBudget budget) {
+        String selector = target.selector();
+        if (!selectorHealer.isEnabled()) {
+            return waitEngine.present(driver, target.locator(), budget);
+        }
+
+        String pageUrl = driver.getCurrentUrl();
+        Optional<String> healed = selectorHealer.lookup(pageUrl, selector);
+        if (healed.isPresent()) {
+            WebElement element = selectorHealer.probe(driver, healed.get(), budget);
+            if (element != null) {
+                log.debug("Using healed selector '{}' for '{}'", healed.get(), selector);
+                return element;
+            }
+            log.info("Healed selector '{}' for '{}' no longer matches", healed.get(), selector);
+            selectorHealer.forget(pageUrl, selector);
+        }
 
-    private void scrollToElement(WebDriver driver, WebElement element) {
-        ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", element);
         try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            return waitEngine.present(driver, target.locator(), budget);
+        } catch (TimeoutException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            SelectorHealer.HealResult result = selectorHealer.heal(driver, pageUrl, selector);
+            if (result == null) {
+                throw e;
+            }
+            return result.element();
         }
     }
 
@@ -192,5 +253,6 @@ public class StepExecutor {
         private String errorType;
         private String screenshotPath;
         private Long executionTimeMs;
+        private Long waitTimeMs; // Time spent waiting for conditions, part of executionTimeMs
     }
 }
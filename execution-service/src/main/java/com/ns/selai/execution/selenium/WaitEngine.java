@@ -0,0 +1,323 @@
+package com.ns.selai.execution.selenium;
+
+import com.ns.selai.execution.plan.PlannedStep;
+import com.ns.selai.execution.plan.StepAction;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Condition-based waits for step execution. Instead of sleeping for a fixed
+ * time, each wait polls a condition with a growing interval (fast at first,
+ * backing off while the page is busy) until it holds or the step's timeout is
+ * used up. Elements are actionable once they are visible, enabled, not covered
+ * by another element and not moving; pages are settled once the DOM stops
+ * changing and no fetch/XHR request is pending.
+ */
+@Component
+@Slf4j
+public class WaitEngine {
+
+    // Returns [state, rect] for an element; scrolls it to the center first when it must receive a pointer event
+    private static final String ACTIONABILITY_SCRIPT = """
+            var el = arguments[0], pointer = arguments[1];
+            if (!el.isConnected) return ['detached', ''];
+            var style = window.getComputedStyle(el);
+            var rect = el.getBoundingClientRect();
+            if (style.visibility === 'hidden' || style.display === 'none' || rect.width === 0 || rect.height === 0) {
+              return ['hidden', ''];
+            }
+            if (el.disabled || el.getAttribute('aria-disabled') === 'true') return ['disabled', ''];
+            // Infinite animations (spinners, pulsing buttons) never finish; position stability covers those
+            var finite = function (a) {
+              return a.playState === 'running' && a.effect && a.effect.getComputedTiming().iterations !== Infinity;
+            };
+            if (el.getAnimations && el.getAnimations().some(finite)) return ['animating', ''];
+            if (pointer) {
+              el.scrollIntoView({block: 'center', inline: 'center'});
+              rect = el.getBoundingClientRect();
+              var top = document.elementFromPoint(rect.left + rect.width / 2, rect.top + rect.height / 2);
+              if (top && top !== el && !el.contains(top)) return ['obscured', ''];
+            }
+            return ['ok', [rect.left, rect.top, rect.width, rect.height].join(',')];
+            """;
+
+    // Installs DOM mutation and fetch/XHR tracking once per document and reports activity
+    private static final String PAGE_ACTIVITY_SCRIPT = """
+            var q = window.__selaiActivity;
+            if (!q) {
+              q = window.__selaiActivity = {lastMutation: Date.now(), lastNetwork: 0, pending: 0};
+              new MutationObserver(function () { q.lastMutation = Date.now(); })
+                  .observe(document, {subtree: true, childList: true, attributes: true, characterData: true});
+              var done = function () { q.pending = Math.max(0, q.pending - 1); q.lastNetwork = Date.now(); };
+              if (window.fetch) {
+                var originalFetch = window.fetch;
+                window.fetch = function () {
+                  q.pending++;
+                  return originalFetch.apply(this, arguments).finally(done);
+                };
+              }
+              var originalSend = XMLHttpRequest.prototype.send;
+              XMLHttpRequest.prototype.send = function () {
+                q.pending++;
+                this.addEventListener('loadend', done);
+                return originalSend.apply(this, arguments);
+              };
+            }
+            var now = Date.now();
+            return [document.readyState, now - q.lastMutation, q.pending, now - q.lastNetwork];
+            """;
+
+    private final Map<StepAction, Duration> timeouts = new EnumMap<>(StepAction.class);
+
+    @Value("${execution.wait.poll-initial-ms:25}")
+    private long pollInitialMs;
+
+    @Value("${execution.wait.poll-max-ms:500}")
+    private long pollMaxMs;
+
+    @Value("${execution.wait.quiet-period-ms:300}")
+    private long quietPeriodMs;
+
+    @Value("${execution.wait.page-settle-seconds:5}")
+    private long pageSettleSeconds;
+
+    public WaitEngine(@Value("${execution.wait.default-timeout-seconds:10}") long defaultTimeoutSeconds,
+            @Value("${execution.wait.timeouts:open_url:30,scroll:5}") String actionTimeouts) {
+        for (StepAction action : StepAction.values()) {
+            timeouts.put(action, Duration.ofSeconds(defaultTimeoutSeconds));
+        }
+        for (String pair : actionTimeouts.split(",")) {
+            String[] parts = pair.trim().split(":");
+            StepAction action = parts.length == 2 ? StepAction.fromName(parts[0]) : null;
+            if (action == null) {
+                if (!pair.isBlank()) {
+                    log.warn("Ignoring malformed wait timeout '{}'", pair);
+                }
+                continue;
+            }
+            timeouts.put(action, Duration.ofSeconds(Long.parseLong(parts[1].trim())));
+        }
+    }
+
+    /**
+     * Starts the wait budget of one step: all waits of the step share its
+     * action's timeout, and the time spent waiting is recorded.
+     */
+    public WaitBudget budgetFor(StepAction action) {
+        return new WaitBudget(timeouts.get(action));
+    }
+
+    /**
+     * Starts the wait budget of a step. A wait step's budget is its own
+     * duration, so it is never cut short by the action timeout.
+     */
+    public WaitBudget budgetFor(PlannedStep step) {
+        if (step instanceof PlannedStep.Wait wait) {
+            return new WaitBudget(wait.duration());
+        }
+        return budgetFor(step.action());
+    }
+
+    /**
+     * Waits until an element matching the locator is attached to the DOM.
+     */
+    public WebElement present(WebDriver driver, By locator, WaitBudget budget) {
+        return until(budget, "element " + locator + " to be present", () -> {
+            List<WebElement> elements = driver.findElements(locator);
+            return elements.isEmpty() ? null : elements.get(0);
+        });
+    }
+
+    /**
+     * Waits until an element matching the locator is present, for at most
+     * {@code cap} of the budget. Returns null instead of failing the step, so
+     * the caller can fall back to another locator with the rest of the budget.
+     */
+    public WebElement presentWithin(WebDriver driver, By locator, Duration cap, WaitBudget budget) {
+        WaitBudget capped = budget.limitedTo(cap);
+        try {
+            return present(driver, locator, capped);
+        } catch (TimeoutException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            return null;
+        } finally {
+            budget.add(capped.waitedNanos);
+        }
+    }
+
+    /**
+     * Waits until an element is visible, enabled and not animating. With
+     * {@code pointer}, it is also scrolled into view and must not be covered by
+     * another element at its center. Its position must be stable across two polls.
+     * On engines that do not lay out pages, only visibility and enabled state
+     * are checked, through WebDriver.
+     */
+    public WebElement actionable(WebDriver driver, WebElement element, boolean pointer, WaitBudget budget) {
+        String[] lastState = {"unknown", null};
+        try {
+            if (driver instanceof ExecutionEngine.NonRendering) {
+                return until(budget, "element to be actionable", () -> {
+                    lastState[0] = !element.isDisplayed() ? "hidden" : !element.isEnabled() ? "disabled" : "ok";
+                    return "ok".equals(lastState[0]) ? element : null;
+                });
+            }
+            return until(budget, "element to be actionable", () -> {
+                List<?> result = (List<?>) ((JavascriptExecutor) driver).executeScript(ACTIONABILITY_SCRIPT, element,
+                        pointer);
+                String state = String.valueOf(result.get(0));
+                String rect = String.valueOf(result.get(1));
+                boolean stable = "ok".equals(state) && rect.equals(lastState[1]);
+                lastState[0] = stable || !"ok".equals(state) ? state : "moving";
+                lastState[1] = rect;
+                return stable ? element : null;
+            });
+        } catch (TimeoutException e) {
+            throw new TimeoutException("Element was not actionable (" + lastState[0] + ") after "
+                    + budget.getTimeout().toMillis() + "ms", e);
+        }
+    }
+
+    /**
+     * Waits until the element's text contains the expected text.
+     */
+    public String textContains(WebElement element, String expectedText, WaitBudget budget) {
+        String[] actual = {""};
+        try {
+            return until(budget, "text '" + expectedText + "'", () -> {
+                actual[0] = element.getText();
+                return actual[0].contains(expectedText) ? actual[0] : null;
+            });
+        } catch (TimeoutException e) {
+            throw new AssertionError(
+                    String.format("Text mismatch. Expected: '%s', Actual: '%s'", expectedText, actual[0]));
+        }
+    }
+
+    /**
+     * Waits until the page has loaded, the DOM has not changed for the quiet
+     * period and no fetch/XHR request is pending. Gives up silently after
+     * {@code cap} (and never later than the budget allows), since busy pages
+     * such as ones with polling or tickers may never become fully quiet.
+     * An interrupted wait is not given up on silently but rethrown.
+     *
+     * @return whether the page settled
+     */
+    public boolean pageSettled(WebDriver driver, Duration cap, WaitBudget budget) {
+        WaitBudget capped = budget.limitedTo(cap);
+        try {
+            until(capped, "page to settle", () -> {
+                List<?> activity = (List<?>) ((JavascriptExecutor) driver).executeScript(PAGE_ACTIVITY_SCRIPT);
+                boolean loaded = "complete".equals(activity.get(0));
+                long sinceMutation = ((Number) activity.get(1)).longValue();
+                long pending = ((Number) activity.get(2)).longValue();
+                long sinceNetwork = ((Number) activity.get(3)).longValue();
+                return loaded && pending == 0 && sinceMutation >= quietPeriodMs && sinceNetwork >= quietPeriodMs
+                        ? Boolean.TRUE : null;
+            });
+            return true;
+        } catch (TimeoutException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            log.debug("Page did not settle within {}ms", capped.getTimeout().toMillis());
+            return false;
+        } finally {
+            budget.add(capped.waitedNanos);
+        }
+    }
+
+    public Duration getPageSettleTimeout() {
+        return Duration.ofSeconds(pageSettleSeconds);
+    }
+
+    /**
+     * Polls the condition until it returns a non-null value. The condition is
+     * always evaluated at least once; the poll interval grows from
+     * poll-initial-ms to poll-max-ms.
+     */
+    private <T> T until(WaitBudget budget, String description, Supplier<T> condition) {
+        long start = System.nanoTime();
+        long interval = pollInitialMs;
+        RuntimeException lastError = null;
+        try {
+            while (true) {
+                try {
+                    T value = condition.get();
+                    if (value != null) {
+                        return value;
+                    }
+                } catch (StaleElementReferenceException | NoSuchElementException e) {
+                    lastError = e;
+                }
+                long remainingMs = budget.remainingMillis(System.nanoTime() - start);
+                if (remainingMs <= 0) {
+                    throw new TimeoutException("Timed out after " + budget.getTimeout().toMillis()
+                            + "ms waiting for " + description, lastError);
+                }
+                sleep(Math.min(interval, remainingMs));
+                interval = Math.min(pollMaxMs, interval * 3 / 2 + 1);
+            }
+        } finally {
+            budget.add(System.nanoTime() - start);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // Cancelled: stop waiting and let the step fail with the interrupt flag set
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Wait interrupted", e);
+        }
+    }
+
+    /**
+     * Timeout of one step and the time it has spent waiting so far.
+     */
+    public static final class WaitBudget {
+        private final Duration timeout;
+        private long waitedNanos;
+
+        private WaitBudget(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public long getWaitedMillis() {
+            return waitedNanos / 1_000_000;
+        }
+
+        private long remainingMillis(long currentWaitNanos) {
+            return (timeout.toNanos() - waitedNanos - currentWaitNanos) / 1_000_000;
+        }
+
+        private void add(long nanos) {
+            waitedNanos += nanos;
+        }
+
+        private WaitBudget limitedTo(Duration cap) {
+            long remaining = Math.max(0, timeout.toNanos() - waitedNanos);
+            return new WaitBudget(Duration.ofNanos(Math.min(remaining, cap.toNanos())));
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.ns.selai.execution.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.ns.selai.execution.dto.ExecutionJobStatus;
+import com.ns.selai.execution.dto.ExecutionJobStatus.JobState;
+import com.ns.selai.execution.dto.ExecutionRequest;
+import com.ns.selai.execution.dto.QueueStatusResponse;
+import com.ns.selai.execution.exception.ExecutionQueueFullException;
+import com.ns.selai.execution.exception.InvalidTestPlanException;
+import com.ns.selai.execution.exception.ResourceNotFoundException;
+import com.ns.selai.execution.plan.ExecutionPlan;
+import com.ns.selai.execution.plan.PlanCompiler;
+import com.ns.selai.execution.selenium.BrowserManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded queue of test run executions drained by a fixed pool of workers.
+ * Submissions are rejected once the queue is full so that callers can back off.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExecutionJobQueue {
+
+    private final TestExecutionService testExecutionService;
+    private final BrowserManager browserManager;
+    private final PlanCompiler planCompiler;
+    private final ObjectMapper objectMapper;
+    private final ResultReporter resultReporter;
+
+    private final Map<String, ExecutionJobStatus> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor workers;
+
+    @Value("${execution.queue.workers:2}")
+    private int workerCount;
+
+    @Value("${execution.queue.capacity:50}")
+    private int queueCapacity;
+
+    @Value("${execution.queue.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    @Value("${execution.queue.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+
+    @Value("${execution.stream.max-test-cases:10000}")
+    private int streamMaxTestCases;
+
+    @PostConstruct
+    public void startWorkers() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> new Thread(r, "execution-worker-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        workers.shutdown();
+    }
+
+    /**
+     * Validates and compiles the test cases, then queues the run for execution
+     * and returns its job id immediately.
+     *
+     * @throws InvalidTestPlanException when a test case is invalid
+     * @throws ExecutionQueueFullException when the queue has no free capacity
+     */
+    public String submit(ExecutionRequest request) {
+        pruneFinishedJobs();
+        List<ExecutionPlan> plans = planCompiler.compile(request.getTestCases());
+
+        ExecutionJobStatus job = enqueue(request.getTestRunId(), request.getConcurrency(), request.getBrowsers(),
+                plans);
+        return job.getJobId();
+    }
+
+    /**
+     * Queues a run whose test cases are read from {@code body} one at a time,
+     * either as a JSON array or as newline-delimited JSON. Each case is compiled
+     * as soon as it is read and spooled to a temporary file, so memory stays
+     * bounded whatever the size of the suite; the worker reads the cases back
+     * as it schedules them. The run is queued only once the whole body has been
+     * read and every case is valid, so the request never waits for a worker and
+     * an invalid suite runs no case at all.
+     *
+     * @throws InvalidTestPlanException when a test case is invalid or unreadable,
+     *         or the suite has more than execution.stream.max-test-cases cases
+     * @throws ExecutionQueueFullException when the queue has no free capacity
+     */
+    public String submitStream(Long testRunId, Integer concurrency, List<String> browsers, InputStream body) {
+        pruneFinishedJobs();
+        // Fail fast instead of spooling a suite that cannot be queued anyway
+        if (workers.getQueue().remainingCapacity() == 0) {
+            throw queueFull();
+        }
+
+        SpooledPlans plans = spool(body);
+        ExecutionJobStatus job;
+        try {
+            job = enqueue(testRunId, concurrency, browsers, plans);
+        } catch (RuntimeException e) {
+            plans.delete();
+            throw e;
+        }
+        log.info("Spooled {} streamed test cases for test run {} (job {})", plans.getCount(), testRunId,
+                job.getJobId());
+        return job.getJobId();
+    }
+
+    public ExecutionJobStatus getJob(String jobId) {
+        ExecutionJobStatus job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Execution job not found with ID: " + jobId);
+        }
+        return job;
+    }
+
+    public QueueStatusResponse getStatus() {
+        return QueueStatusResponse.builder()
+                .queueDepth(workers.getQueue().size())
+                .queueCapacity(queueCapacity)
+                .activeJobs(workers.getActiveCount())
+                .workerCount(workerCount)
+                .activeBrowserSlots(browserManager.getLeasedSessionCount())
+                .liveBrowserSessions(browserManager.getLiveSessionCount())
+                .maxBrowserSlots(browserManager.getMaxPoolSize())
+                .build();
+    }
+
+    private ExecutionJobStatus enqueue(Long testRunId, Integer concurrency, List<String> browsers,
+            Iterable<ExecutionPlan> plans) {
+        String jobId = UUID.randomUUID().toString();
+        ExecutionJobStatus job = ExecutionJobStatus.builder()
+                .jobId(jobId)
+                .testRunId(testRunId)
+                .state(JobState.QUEUED)
+                .submittedAt(LocalDateTime.now())
+                .build();
+        jobs.put(jobId, job);
+
+        try {
+            workers.execute(() -> runJob(job, concurrency, browsers, plans));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            throw queueFull();
+        }
+
+        log.info("Queued job {} for test run {} (queue depth {})", jobId, testRunId, workers.getQueue().size());
+        return job;
+    }
+
+    private SpooledPlans spool(InputStream body) {
+        Path file;
+        try {
+            file = Files.createTempFile("execution-stream-", ".ndjson");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create spool file for streamed test cases", e);
+        }
+
+        int count = 0;
+        boolean spooled = false;
+        try (MappingIterator<ExecutionRequest.TestCase> testCases = objectMapper
+                .readerFor(ExecutionRequest.TestCase.class)
+                .readValues(body);
+             SequenceWriter spool = objectMapper.writerFor(ExecutionRequest.TestCase.class)
+                     .withRootValueSeparator("\n")
+                     .writeValues(Files.newBufferedWriter(file))) {
+            while (testCases.hasNext()) {
+                ExecutionRequest.TestCase testCase = testCases.next();
+                count++;
+                if (testCase == null) {
+                    throw new InvalidTestPlanException(List.of("Test case " + count + " is empty"));
+                }
+                if (count > streamMaxTestCases) {
+                    throw new InvalidTestPlanException(List.of("Streamed suites are limited to "
+                            + streamMaxTestCases + " test cases"));
+                }
+                planCompiler.compile(testCase);
+                spool.write(testCase);
+            }
+            if (count == 0) {
+                throw new InvalidTestPlanException(List.of("No test cases to execute"));
+            }
+            spooled = true;
+        } catch (IOException | RuntimeJsonMappingException e) {
+            throw new InvalidTestPlanException(List.of("Test case " + (count + 1) + " could not be read: "
+                    + e.getMessage()));
+        } finally {
+            if (!spooled) {
+                deleteQuietly(file);
+            }
+        }
+        return new SpooledPlans(file, count, objectMapper.readerFor(ExecutionRequest.TestCase.class), planCompiler);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spool file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private ExecutionQueueFullException queueFull() {
+        return new ExecutionQueueFullException(
+                "Execution queue is full (" + queueCapacity + " jobs), retry later", retryAfterSeconds);
+    }
+
+    private void runJob(ExecutionJobStatus job, Integer concurrency, List<String> browsers,
+            Iterable<ExecutionPlan> plans) {
+        job.setState(JobState.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        try {
+            testExecutionService.executeTestRun(job.getTestRunId(), plans, concurrency, browsers);
+            job.setState(JobState.COMPLETED);
+        } catch (Exception e) {
+            log.error("Execution job {} for test run {} failed: ", job.getJobId(), job.getTestRunId(), e);
+            job.setState(JobState.FAILED);
+            job.setErrorMessage(e.getMessage());
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+            if (plans instanceof SpooledPlans spooled) {
+                spooled.delete();
+            }
+            resultReporter.reportJobEnd(job);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+}
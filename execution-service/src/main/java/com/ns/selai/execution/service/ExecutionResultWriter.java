@@ -0,0 +1,165 @@
+package com.ns.selai.execution.service;
+
+import com.ns.selai.execution.model.StepExecutionResult;
+import com.ns.selai.execution.model.TestExecution;
+import com.ns.selai.execution.repository.StepExecutionResultRepository;
+import com.ns.selai.execution.repository.TestExecutionRepository;
+import com.ns.selai.execution.selenium.StepExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers finished test executions with their step results and inserts them
+ * in batches: when the buffer reaches the batch size, on a timer, and when a
+ * run ends. Each execution is written once, in its final state.
+ * <p>
+ * Ids come from pooled sequences, so Hibernate can group the inserts into JDBC
+ * batches (see {@code hibernate.jdbc.batch_size}).
+ */
+@Component
+@Slf4j
+public class ExecutionResultWriter {
+
+    private final TestExecutionRepository testExecutionRepository;
+    private final StepExecutionResultRepository stepResultRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Object bufferLock = new Object();
+
+    private List<PendingExecution> buffer = new ArrayList<>();
+    private ScheduledExecutorService flushExecutor;
+
+    @Value("${execution.persistence.batch-size:50}")
+    private int batchSize;
+
+    @Value("${execution.persistence.flush-interval-ms:2000}")
+    private long flushIntervalMs;
+
+    public ExecutionResultWriter(TestExecutionRepository testExecutionRepository,
+            StepExecutionResultRepository stepResultRepository,
+            PlatformTransactionManager transactionManager) {
+        this.testExecutionRepository = testExecutionRepository;
+        this.stepResultRepository = stepResultRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "execution-result-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        flush();
+    }
+
+    /**
+     * Queues a finished execution and its step results. Flushes on the calling
+     * thread once the batch size is reached.
+     */
+    public void add(TestExecution execution, List<StepExecutor.StepResult> steps) {
+        boolean full;
+        synchronized (bufferLock) {
+            buffer.add(new PendingExecution(execution, steps == null ? List.of() : steps));
+            full = buffer.size() >= batchSize;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes everything buffered so far. Returns after any flush in progress
+     * has finished too, so results added before the call are stored.
+     */
+    public synchronized void flush() {
+        List<PendingExecution> pending;
+        synchronized (bufferLock) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            pending = buffer;
+            buffer = new ArrayList<>();
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(pending));
+            log.debug("Stored {} test executions in {}ms", pending.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            // Retry one by one, so a single bad row does not lose the whole batch
+            log.warn("Batch insert of {} test executions failed, storing them individually: {}", pending.size(),
+                    e.getMessage());
+            for (PendingExecution execution : pending) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(execution)));
+                } catch (Exception single) {
+                    log.error("Failed to store execution of '{}' for test run {}: ",
+                            execution.execution().getTestName(), execution.execution().getTestRunId(), single);
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Scheduled flush of test executions failed: ", e);
+        }
+    }
+
+    private void persist(List<PendingExecution> pending) {
+        List<TestExecution> executions = new ArrayList<>(pending.size());
+        for (PendingExecution execution : pending) {
+            // Cleared so a retry after a rolled back batch inserts again
+            execution.execution().setId(null);
+            executions.add(execution.execution());
+        }
+        testExecutionRepository.saveAll(executions);
+
+        List<StepExecutionResult> stepResults = new ArrayList<>();
+        for (PendingExecution execution : pending) {
+            List<StepExecutor.StepResult> steps = execution.steps();
+            for (int i = 0; i < steps.size(); i++) {
+                StepExecutor.StepResult step = steps.get(i);
+                stepResults.add(StepExecutionResult.builder()
+                        .testExecutionId(execution.execution().getId())
+                        .testRunId(execution.execution().getTestRunId())
+                        .stepIndex(i)
+                        .action(step.getAction())
+                        .selector(step.getSelector())
+                        .success(step.isSuccess())
+                        .message(step.getMessage())
+                        .errorType(step.getErrorType())
+                        .screenshotPath(step.getScreenshotPath())
+                        .executionTimeMs(step.getExecutionTimeMs())
+                        .waitTimeMs(step.getWaitTimeMs())
+                        .build());
+            }
+        }
+        stepResultRepository.saveAll(stepResults);
+    }
+
+    private record PendingExecution(TestExecution execution, List<StepExecutor.StepResult> steps) {
+    }
+}
@@ -0,0 +1,268 @@
+package com.ns.selai.execution.service;
+
+import com.ns.selai.execution.dto.ExecutionJobStatus;
+import com.ns.selai.execution.model.TestExecution;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports test case results to the Orchestration Service while a run is in
+ * progress, so it can update its counts and complete the run when the last
+ * result arrives. Results are buffered per run and sent in batches: when the
+ * batch size is reached, on a timer, and at the end of every run.
+ * <p>
+ * Each result gets an idempotency key when it is created, so a batch that is
+ * retried after a timeout is not counted twice. A batch that still fails after
+ * its retries goes back into the buffer and is sent again on a later flush.
+ * When a job ends, its outcome is sent after its results, so orchestration can
+ * fail a run whose job failed. Sending happens on a single background thread
+ * and never holds up test execution.
+ */
+@Component
+@Slf4j
+public class ResultReporter {
+
+    private final WebClient webClient;
+    private final Object bufferLock = new Object();
+
+    private Map<Long, List<ResultUpdate>> buffer = new LinkedHashMap<>();
+    private List<JobUpdate> jobUpdates = new ArrayList<>();
+    private int buffered;
+    private ScheduledExecutorService sender;
+
+    @Value("${orchestration.service.url:http://localhost:8082}")
+    private String orchestrationServiceUrl;
+
+    @Value("${orchestration.service.timeout:30000}")
+    private long timeoutMs;
+
+    @Value("${execution.callback.enabled:true}")
+    private boolean enabled;
+
+    @Value("${execution.callback.batch-size:20}")
+    private int batchSize;
+
+    @Value("${execution.callback.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${execution.callback.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${execution.callback.backoff-ms:500}")
+    private long backoffMs;
+
+    @Value("${execution.callback.max-buffered:10000}")
+    private int maxBuffered;
+
+    public ResultReporter(WebClient.Builder webClientBuilder) {
+        this.webClient = webClientBuilder.build();
+    }
+
+    @PostConstruct
+    public void start() {
+        sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "result-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Queues the final result of a test case for reporting.
+     */
+    public void report(TestExecution execution) {
+        if (!enabled) {
+            return;
+        }
+        ResultUpdate update = new ResultUpdate(
+                UUID.randomUUID().toString(),
+                execution.getTestName(),
+                execution.getBrowser(),
+                execution.getEngine(),
+                execution.getStatus().name(),
+                execution.getErrorMessage(),
+                execution.getExecutionTimeMs(),
+                execution.getScreenshotPath());
+        boolean full;
+        synchronized (bufferLock) {
+            buffer.computeIfAbsent(execution.getTestRunId(), id -> new ArrayList<>()).add(update);
+            full = ++buffered >= batchSize;
+        }
+        if (full) {
+            flushAsync();
+        }
+    }
+
+    /**
+     * Queues the outcome of a finished job, to be sent after its results.
+     */
+    public void reportJobEnd(ExecutionJobStatus job) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (bufferLock) {
+            jobUpdates.add(new JobUpdate(job.getTestRunId(),
+                    new JobOutcome(job.getJobId(), job.getState().name(), job.getErrorMessage())));
+        }
+        flushAsync();
+    }
+
+    /**
+     * Sends everything buffered so far in the background; called when a run ends.
+     */
+    public void flushAsync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sender.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            log.debug("Result reporter is shut down, results are sent on stop");
+        }
+    }
+
+    private void flush() {
+        Map<Long, List<ResultUpdate>> pending;
+        List<JobUpdate> pendingJobs;
+        synchronized (bufferLock) {
+            if (buffered == 0 && jobUpdates.isEmpty()) {
+                return;
+            }
+            pending = buffer;
+            pendingJobs = jobUpdates;
+            buffer = new LinkedHashMap<>();
+            jobUpdates = new ArrayList<>();
+            buffered = 0;
+        }
+        // Results go first so that a job outcome never overtakes them
+        for (Iterator<Map.Entry<Long, List<ResultUpdate>>> runs = pending.entrySet().iterator(); runs.hasNext(); ) {
+            Map.Entry<Long, List<ResultUpdate>> run = runs.next();
+            List<ResultUpdate> updates = run.getValue();
+            for (int from = 0; from < updates.size(); from += batchSize) {
+                List<ResultUpdate> batch = updates.subList(from, Math.min(updates.size(), from + batchSize));
+                if (!send(run.getKey(), "/test-results", batch, batch.size() + " test case results")) {
+                    run.setValue(new ArrayList<>(updates.subList(from, updates.size())));
+                    requeue(pending, pendingJobs);
+                    return;
+                }
+            }
+            runs.remove();
+        }
+        for (int i = 0; i < pendingJobs.size(); i++) {
+            JobUpdate update = pendingJobs.get(i);
+            if (!send(update.testRunId(), "/execution-jobs", update.outcome(), "the outcome of job "
+                    + update.outcome().jobId())) {
+                requeue(Map.of(), pendingJobs.subList(i, pendingJobs.size()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Puts what could not be sent back in front of what was buffered since.
+     * Results beyond the buffer limit are dropped; the run is then failed by
+     * orchestration once it makes no more progress.
+     */
+    private void requeue(Map<Long, List<ResultUpdate>> results, List<JobUpdate> jobs) {
+        synchronized (bufferLock) {
+            Map<Long, List<ResultUpdate>> merged = new LinkedHashMap<>();
+            int count = 0;
+            for (Map.Entry<Long, List<ResultUpdate>> run : results.entrySet()) {
+                if (buffered + count + run.getValue().size() > maxBuffered) {
+                    log.error("Result buffer is full, dropping {} test case results of test run {}",
+                            run.getValue().size(), run.getKey());
+                    continue;
+                }
+                merged.put(run.getKey(), new ArrayList<>(run.getValue()));
+                count += run.getValue().size();
+            }
+            buffer.forEach((testRunId, updates) -> merged.merge(testRunId, updates, (older, newer) -> {
+                older.addAll(newer);
+                return older;
+            }));
+            buffer = merged;
+            buffered += count;
+
+            List<JobUpdate> mergedJobs = new ArrayList<>(jobs);
+            mergedJobs.addAll(jobUpdates);
+            jobUpdates = mergedJobs;
+        }
+    }
+
+    /**
+     * Posts to the run's callback endpoint. Returns false when the request
+     * failed after its retries and should be sent again later; requests that
+     * cannot succeed, like those for an unknown run, are dropped.
+     */
+    private boolean send(Long testRunId, String path, Object body, String description) {
+        try {
+            webClient.post()
+                    .uri(orchestrationServiceUrl + "/api/test-runs/{id}" + path, testRunId)
+                    .bodyValue(body)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .retryWhen(Retry.backoff(Math.max(0, maxAttempts - 1), Duration.ofMillis(backoffMs))
+                            .filter(ResultReporter::isRetryable))
+                    .block();
+            log.debug("Reported {} of test run {}", description, testRunId);
+            return true;
+        } catch (Exception e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (Exceptions.isRetryExhausted(e) && e.getCause() != null) {
+                cause = e.getCause();
+            }
+            if (!isRetryable(cause)) {
+                log.error("Dropping {} of test run {}: {}", description, testRunId, cause.getMessage());
+                return true;
+            }
+            log.warn("Failed to report {} of test run {}, will retry: {}", description, testRunId,
+                    cause.getMessage());
+            return false;
+        }
+    }
+
+    // Client errors other than 429 will not succeed on retry
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    private record JobUpdate(Long testRunId, JobOutcome outcome) {
+    }
+
+    private record JobOutcome(String jobId, String state, String errorMessage) {
+    }
+
+    private record ResultUpdate(String key, String testName, String browser, String engine, String status,
+            String errorMessage, Long executionTimeMs, String screenshotPath) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.ns.selai.execution.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks cancellation requests for test runs. Threads working on a run register
+ * with its token; cancelling the run sets the flag, which is checked between test
+ * cases and between steps, and interrupts the registered threads so that waits
+ * and sleeps end immediately. Tokens outlive the run for a while so that batches
+ * of a cancelled run that arrive later are skipped as well.
+ */
+@Component
+@Slf4j
+public class RunCancellationRegistry {
+
+    private final Map<Long, CancellationToken> tokens = new ConcurrentHashMap<>();
+
+    @Value("${execution.cancellation.retention-minutes:60}")
+    private long retentionMinutes;
+
+    public CancellationToken tokenFor(Long testRunId) {
+        pruneExpired();
+        CancellationToken token = tokens.computeIfAbsent(testRunId, CancellationToken::new);
+        token.touch();
+        return token;
+    }
+
+    public void cancel(Long testRunId) {
+        log.info("Cancelling execution of test run {}", testRunId);
+        tokenFor(testRunId).cancel();
+    }
+
+    public boolean isCancelled(Long testRunId) {
+        CancellationToken token = tokens.get(testRunId);
+        return token != null && token.isCancelled();
+    }
+
+    private void pruneExpired() {
+        long cutoff = System.nanoTime() - TimeUnit.MINUTES.toNanos(retentionMinutes);
+        tokens.values().removeIf(token -> token.isIdleSince(cutoff));
+    }
+
+    public static final class CancellationToken {
+
+        private final Long testRunId;
+        private final Set<Thread> threads = new HashSet<>();
+        private volatile boolean cancelled;
+        private volatile long lastUsed = System.nanoTime();
+
+        private CancellationToken(Long testRunId) {
+            this.testRunId = testRunId;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Registers the current thread so that cancelling interrupts it.
+         */
+        public synchronized void register() {
+            threads.add(Thread.currentThread());
+            if (cancelled) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Unregisters the current thread and clears an interrupt raised by this
+         * token, so a pooled thread does not carry it into unrelated work.
+         */
+        public synchronized void unregister() {
+            threads.remove(Thread.currentThread());
+            if (cancelled) {
+                Thread.interrupted();
+            }
+            touch();
+        }
+
+        private synchronized void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            log.info("Interrupting {} threads working on test run {}", threads.size(), testRunId);
+            threads.forEach(Thread::interrupt);
+        }
+
+        private void touch() {
+            lastUsed = System.nanoTime();
+        }
+
+        private synchronized boolean isIdleSince(long cutoff) {
+            return threads.isEmpty() && lastUsed < cutoff;
+        }
+    }
+}
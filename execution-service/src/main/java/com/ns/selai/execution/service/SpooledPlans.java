@@ -0,0 +1,85 @@
+package com.ns.selai.execution.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.ns.selai.execution.dto.ExecutionRequest;
+import com.ns.selai.execution.plan.ExecutionPlan;
+import com.ns.selai.execution.plan.PlanCompiler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Test cases of a streamed request, validated and written to a temporary file
+ * as NDJSON while the body was read. The worker reads and compiles them again
+ * one at a time, so memory stays bounded whatever the size of the suite.
+ * Iterable once, by a single consumer.
+ */
+@Slf4j
+public class SpooledPlans implements Iterable<ExecutionPlan> {
+
+    private final Path file;
+    private final int count;
+    private final ObjectReader reader;
+    private final PlanCompiler planCompiler;
+    private MappingIterator<ExecutionRequest.TestCase> testCases;
+    private boolean iterated;
+
+    public SpooledPlans(Path file, int count, ObjectReader reader, PlanCompiler planCompiler) {
+        this.file = file;
+        this.count = count;
+        this.reader = reader;
+        this.planCompiler = planCompiler;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Closes and deletes the spool file; called once the run has ended or
+     * could not be queued.
+     */
+    public synchronized void delete() {
+        try {
+            if (testCases != null) {
+                testCases.close();
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled test cases {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized Iterator<ExecutionPlan> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("Spooled test cases can only be iterated once");
+        }
+        iterated = true;
+        try {
+            testCases = reader.readValues(file.toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spooled test cases", e);
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return testCases.hasNext();
+            }
+
+            @Override
+            public ExecutionPlan next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return planCompiler.compile(testCases.next());
+            }
+        };
+    }
+}
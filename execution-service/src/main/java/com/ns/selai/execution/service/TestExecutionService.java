@@ -2,74 +2,566 @@ package com.ns.selai.execution.service;
 
 import com.ns.selai.execution.dto.ExecutionRequest;
 import com.ns.selai.execution.model.TestExecution;
-import com.ns.selai.execution.repository.TestExecutionRepository;
+import com.ns.selai.execution.plan.ExecutionPlan;
+import com.ns.selai.execution.plan.PlanCompiler;
 import com.ns.selai.execution.selenium.BrowserManager;
-import com.ns.selai.execution.selenium.ScreenshotService;
+import com.ns.selai.execution.selenium.ExecutionEngine;
 import com.ns.selai.execution.selenium.StepExecutor;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.WebDriver;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TestExecutionService {
 
-    private final TestExecutionRepository testExecutionRepository;
+    private static final String CANCELLED_MESSAGE = "Skipped: test run was cancelled";
+    private static final String LANE_FAILED_MESSAGE = "Not run: lane %s failed: %s";
+
+    private final ExecutionResultWriter resultWriter;
+    private final ResultReporter resultReporter;
     private final BrowserManager browserManager;
     private final StepExecutor stepExecutor;
-    private final ScreenshotService screenshotService;
+    private final ThreadPoolTaskExecutor testCaseExecutor;
+    private final ThreadPoolTaskExecutor laneExecutor;
+    private final RunCancellationRegistry cancellationRegistry;
+    private final PlanCompiler planCompiler;
+    private final Map<String, Integer> laneConcurrency;
+
+    @Value("${execution.run.concurrency:4}")
+    private int defaultConcurrency;
+
+    @Value("${execution.browser.default:chrome}")
+    private String defaultBrowser;
+
+    @Value("${execution.matrix.lane-buffer-size:16}")
+    private int laneBufferSize;
+
+    public TestExecutionService(ExecutionResultWriter resultWriter,
+            ResultReporter resultReporter,
+            BrowserManager browserManager,
+            StepExecutor stepExecutor,
+            @Qualifier("testCaseExecutor") ThreadPoolTaskExecutor testCaseExecutor,
+            @Qualifier("laneExecutor") ThreadPoolTaskExecutor laneExecutor,
+            RunCancellationRegistry cancellationRegistry,
+            PlanCompiler planCompiler,
+            @Value("${execution.matrix.lane-concurrency:}") String laneConcurrency) {
+        this.laneConcurrency = parseLaneConcurrency(laneConcurrency);
+        this.resultWriter = resultWriter;
+        this.resultReporter = resultReporter;
+        this.browserManager = browserManager;
+        this.stepExecutor = stepExecutor;
+        this.testCaseExecutor = testCaseExecutor;
+        this.laneExecutor = laneExecutor;
+        this.cancellationRegistry = cancellationRegistry;
+        this.planCompiler = planCompiler;
+    }
 
-    @Transactional
     public void executeTestRun(Long testRunId, List<ExecutionRequest.TestCase> testCases) {
-        log.info("Starting execution for test run ID: {} with {} test cases", testRunId, testCases.size());
+        executeTestRun(testRunId, planCompiler.compile(testCases), null, null);
+    }
 
-        WebDriver driver = null;
-        int passedCount = 0;
-        int failedCount = 0;
+    /**
+     * Executes the compiled test cases of a run once per browser. Each browser
+     * is a lane that runs up to its concurrency limit of cases at a time, each on
+     * its own browser session, independently of the other lanes. Results are
+     * collected in submission order so tallies are the same as for a sequential
+     * run. Cases are taken from {@code testCases} only as lanes accept them, so a
+     * streamed run is scheduled while it is still being read.
+     */
+    public void executeTestRun(Long testRunId, Iterable<ExecutionPlan> testCases, Integer concurrency,
+            List<String> browsers) {
+        RunCancellationRegistry.CancellationToken token = cancellationRegistry.tokenFor(testRunId);
+        List<Lane> lanes = resolveBrowsers(browsers).stream()
+                .map(browser -> new Lane(testRunId, browser, resolveConcurrency(concurrency, browser), token))
+                .toList();
+        if (testCases instanceof Collection<?> collection) {
+            log.info("Starting execution for test run ID: {} with {} test cases in lanes {}", testRunId,
+                    collection.size(), lanes);
+        } else {
+            log.info("Starting streamed execution for test run ID: {} in lanes {}", testRunId, lanes);
+        }
 
+        token.register();
         try {
-            driver = browserManager.getWebDriver("chrome");
-            stepExecutor.setWebDriver(driver);
-            screenshotService.setWebDriver(driver);
-
-            for (ExecutionRequest.TestCase testCase : testCases) {
-                TestExecution testExecution = TestExecution.builder()
-                        .testRunId(testRunId)
-                        .testName(testCase.getName())
-                        .testDescription(testCase.getDescription())
-                        .status(TestExecution.TestExecutionStatus.PENDING)
-                        .executedAt(LocalDateTime.now())
-                        .build();
-                testExecution = testExecutionRepository.save(testExecution);
+            if (lanes.size() == 1) {
+                Lane lane = lanes.get(0);
+                for (ExecutionPlan testCase : testCases) {
+                    lane.accept(testCase);
+                }
+                lane.finish();
+            } else {
+                runLanes(lanes, testCases, !(testCases instanceof Collection<?>));
+            }
+            for (Lane lane : lanes) {
+                if (lane.failure != null) {
+                    throw new IllegalStateException("Lane " + lane.browser + " failed: "
+                            + lane.failure.getMessage(), lane.failure);
+                }
+            }
+        } finally {
+            token.unregister();
+            resultWriter.flush();
+            resultReporter.flushAsync();
+            RunTally total = new RunTally();
+            for (Lane lane : lanes) {
+                total.add(lane.tally);
+                if (lanes.size() > 1) {
+                    log.info("Lane {} of test run ID: {}. Passed: {}, Failed: {}, Skipped: {}", lane.browser,
+                            testRunId, lane.tally.passed, lane.tally.failed, lane.tally.skipped);
+                }
+            }
+            log.info("Completed execution for test run ID: {}. Passed: {}, Failed: {}, Skipped: {}", testRunId,
+                    total.passed, total.failed, total.skipped);
+        }
+    }
 
-                try {
-                    log.info("Executing test case: {}", testCase.getName());
-                    stepExecutor.executeSteps(testCase.getSteps());
-                    testExecution.setStatus(TestExecution.TestExecutionStatus.PASSED);
-                    passedCount++;
-                } catch (Exception e) {
-                    log.error("Test case '{}' failed: {}", testCase.getName(), e.getMessage());
-                    testExecution.setStatus(TestExecution.TestExecutionStatus.FAILED);
-                    testExecution.setErrorMessage(e.getMessage());
-                    testExecution.setScreenshotPath(screenshotService
-                            .captureScreenshot(testRunId + "_" + testCase.getName().replaceAll("\\s+", "_") + "_FAIL"));
-                    failedCount++;
-                } finally {
-                    testExecutionRepository.save(testExecution);
+    /**
+     * Runs every lane on a thread of the lane executor and feeds each case to all
+     * of them, so a slow browser does not hold back the others. For streamed
+     * input the lane buffers are bounded, which keeps memory bounded but lets
+     * the fastest lane run at most that far ahead of the slowest.
+     */
+    private void runLanes(List<Lane> lanes, Iterable<ExecutionPlan> testCases, boolean bounded) {
+        for (Lane lane : lanes) {
+            lane.start(bounded ? laneBufferSize : Integer.MAX_VALUE);
+        }
+        try {
+            for (ExecutionPlan testCase : testCases) {
+                for (Lane lane : lanes) {
+                    lane.offer(testCase);
                 }
             }
         } finally {
+            for (Lane lane : lanes) {
+                lane.offer(Lane.END);
+            }
+            for (Lane lane : lanes) {
+                lane.join();
+                lane.recordLeftovers();
+            }
+        }
+    }
+
+    /**
+     * Waits for a free slot. Returns false once the run is cancelled, so the
+     * remaining test cases are skipped without starting a browser.
+     */
+    private boolean acquireSlot(Semaphore slots, RunCancellationRegistry.CancellationToken token) {
+        while (!token.isCancelled()) {
+            try {
+                slots.acquire();
+                if (token.isCancelled()) {
+                    slots.release();
+                    return false;
+                }
+                return true;
+            } catch (InterruptedException e) {
+                if (!token.isCancelled()) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while scheduling test cases", e);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for a submitted test case. Cancellation interrupts this thread once;
+     * the wait then continues so that every case records its final status.
+     */
+    private TestExecution awaitResult(Long testRunId, Future<TestExecution> future) {
+        while (true) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                log.debug("Interrupted while waiting for a test case of run {}, waiting for it to stop", testRunId);
+            } catch (ExecutionException e) {
+                log.error("Test case execution for run {} failed unexpectedly: ", testRunId, e.getCause());
+                return null;
+            }
+        }
+    }
+
+    private TestExecution recordSkipped(Long testRunId, ExecutionPlan testCase, String browser) {
+        return recordNotRun(testRunId, testCase, browser, TestExecution.TestExecutionStatus.SKIPPED,
+                CANCELLED_MESSAGE);
+    }
+
+    private TestExecution recordNotRun(Long testRunId, ExecutionPlan testCase, String browser,
+            TestExecution.TestExecutionStatus status, String message) {
+        TestExecution execution = TestExecution.builder()
+                .testRunId(testRunId)
+                .testName(testCase.name())
+                .testDescription(testCase.description())
+                .browser(browser)
+                .engine(browser)
+                .status(status)
+                .errorMessage(message)
+                .executedAt(LocalDateTime.now())
+                .build();
+        resultWriter.add(execution, List.of());
+        resultReporter.report(execution);
+        return execution;
+    }
+
+    /**
+     * Runs one test case. The execution is stored once, in its final state,
+     * together with its step results. On an engine with a fallback (see
+     * {@link ExecutionEngine#getFallbackEngine()}), cases it cannot run go to the
+     * fallback engine, and failed cases are rerun there if the engine is set up
+     * to. The result counts towards the lane the case was scheduled on, and
+     * records the engine it actually came from.
+     */
+    private TestExecution executeTestCase(Long testRunId, ExecutionPlan testCase, String browser,
+            RunCancellationRegistry.CancellationToken token) {
+        if (token.isCancelled()) {
+            return recordSkipped(testRunId, testCase, browser);
+        }
+
+        long startTime = System.currentTimeMillis();
+        ExecutionEngine engine = browserManager.getEngine(browser);
+        String fallback = engine.getFallbackEngine();
+        Attempt attempt;
+        if (fallback != null && !engine.canRun(testCase)) {
+            log.info("Test case '{}' needs a real browser, running it on {} instead of {}", testCase.name(),
+                    fallback, browser);
+            attempt = attempt(testRunId, testCase, fallback, token);
+        } else {
+            attempt = attempt(testRunId, testCase, browser, token);
+            if (engine.rerunsFailures() && attempt.failed() && !token.isCancelled()) {
+                log.info("Test case '{}' failed on {}, rerunning it on {}", testCase.name(), browser, fallback);
+                Attempt rerun = attempt(testRunId, testCase, fallback, token);
+                if (rerun.failed() && rerun.steps().isEmpty()) {
+                    // No session on the fallback engine: keep the original failure
+                    log.warn("Could not rerun test case '{}' on {}: {}", testCase.name(), fallback,
+                            rerun.execution().getErrorMessage());
+                } else {
+                    attempt = rerun;
+                }
+            }
+        }
+
+        TestExecution testExecution = attempt.execution();
+        testExecution.setEngine(testExecution.getBrowser());
+        testExecution.setBrowser(browser);
+        testExecution.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+        resultWriter.add(testExecution, attempt.steps());
+        resultReporter.report(testExecution);
+        return testExecution;
+    }
+
+    private Attempt attempt(Long testRunId, ExecutionPlan testCase, String browser,
+            RunCancellationRegistry.CancellationToken token) {
+        TestExecution testExecution = TestExecution.builder()
+                .testRunId(testRunId)
+                .testName(testCase.name())
+                .testDescription(testCase.description())
+                .browser(browser)
+                .status(TestExecution.TestExecutionStatus.RUNNING)
+                .executedAt(LocalDateTime.now())
+                .build();
+
+        WebDriver driver = null;
+        List<StepExecutor.StepResult> results = List.of();
+        token.register();
+        try {
+            log.info("Executing test case: {} on {}", testCase.name(), browser);
+            driver = browserManager.borrowWebDriver(browser);
+            results = stepExecutor.executeSteps(driver, testCase, testRunId);
+
+            StepExecutor.StepResult failedStep = results.stream()
+                    .filter(result -> !result.isSuccess())
+                    .findFirst()
+                    .orElse(null);
+            if (token.isCancelled()) {
+                log.info("Test case '{}' stopped, test run {} was cancelled", testCase.name(), testRunId);
+                testExecution.setStatus(TestExecution.TestExecutionStatus.SKIPPED);
+                testExecution.setErrorMessage(CANCELLED_MESSAGE);
+            } else if (failedStep == null) {
+                testExecution.setStatus(TestExecution.TestExecutionStatus.PASSED);
+                results.stream()
+                        .map(StepExecutor.StepResult::getScreenshotPath)
+                        .filter(path -> path != null)
+                        .reduce((first, second) -> second)
+                        .ifPresent(testExecution::setScreenshotPath);
+            } else {
+                log.error("Test case '{}' failed at step '{}': {}", testCase.name(), failedStep.getAction(),
+                        failedStep.getMessage());
+                testExecution.setStatus(TestExecution.TestExecutionStatus.FAILED);
+                testExecution.setErrorMessage(failedStep.getMessage());
+                testExecution.setScreenshotPath(failedStep.getScreenshotPath());
+            }
+        } catch (Exception e) {
+            if (token.isCancelled()) {
+                testExecution.setStatus(TestExecution.TestExecutionStatus.SKIPPED);
+                testExecution.setErrorMessage(CANCELLED_MESSAGE);
+            } else {
+                log.error("Test case '{}' failed: {}", testCase.name(), e.getMessage());
+                testExecution.setStatus(TestExecution.TestExecutionStatus.FAILED);
+                testExecution.setErrorMessage(e.getMessage());
+            }
+        } finally {
+            // Unregister first: it clears the cancellation interrupt so the session can be reset
+            token.unregister();
             if (driver != null) {
-                browserManager.quitWebDriver(driver);
+                browserManager.returnWebDriver(driver);
             }
-            log.info("Completed execution for test run ID: {}. Passed: {}, Failed: {}", testRunId, passedCount,
-                    failedCount);
+        }
+        return new Attempt(testExecution, results);
+    }
+
+    private List<String> resolveBrowsers(List<String> requested) {
+        List<String> browsers = requested == null ? List.of() : requested.stream()
+                .filter(browser -> browser != null && !browser.isBlank())
+                .map(browser -> browser.trim().toLowerCase(Locale.ROOT))
+                .distinct()
+                .toList();
+        return browsers.isEmpty() ? List.of(defaultBrowser) : browsers;
+    }
+
+    // A configured lane limit wins over the requested concurrency; each browser has its own session pool
+    private int resolveConcurrency(Integer requested, String browser) {
+        Integer laneLimit = laneConcurrency.get(browser);
+        int concurrency = laneLimit != null ? laneLimit
+                : requested != null && requested > 0 ? requested : defaultConcurrency;
+        return Math.max(1, Math.min(concurrency, browserManager.getMaxPoolSize(browser)));
+    }
+
+    private static Map<String, Integer> parseLaneConcurrency(String pairs) {
+        Map<String, Integer> limits = new HashMap<>();
+        for (String pair : pairs.split(",")) {
+            String[] parts = pair.trim().split(":");
+            if (parts.length != 2) {
+                if (!pair.isBlank()) {
+                    log.warn("Ignoring malformed lane concurrency '{}'", pair);
+                }
+                continue;
+            }
+            limits.put(parts[0].trim().toLowerCase(Locale.ROOT), Integer.parseInt(parts[1].trim()));
+        }
+        return limits;
+    }
+
+    /**
+     * One browser of a run: its own slot limit and results and, in matrix runs,
+     * its own scheduling task on the lane executor fed through a buffer.
+     */
+    private final class Lane {
+        private static final Object END = new Object();
+
+        private final Long testRunId;
+        private final String browser;
+        private final int concurrency;
+        private final Semaphore slots;
+        private final RunCancellationRegistry.CancellationToken token;
+        private final Deque<Future<TestExecution>> futures = new ArrayDeque<>();
+        private final RunTally tally = new RunTally();
+        private BlockingQueue<Object> inbox;
+        private Future<?> drainer;
+        private volatile RuntimeException failure;
+
+        private Lane(Long testRunId, String browser, int concurrency,
+                RunCancellationRegistry.CancellationToken token) {
+            this.testRunId = testRunId;
+            this.browser = browser;
+            this.concurrency = concurrency;
+            this.slots = new Semaphore(concurrency);
+            this.token = token;
+        }
+
+        private void schedule(ExecutionPlan testCase) {
+            if (!acquireSlot(slots, token)) {
+                futures.add(CompletableFuture.completedFuture(recordSkipped(testRunId, testCase, browser)));
+            } else {
+                try {
+                    futures.add(testCaseExecutor.submit(() -> {
+                        try {
+                            return executeTestCase(testRunId, testCase, browser, token);
+                        } finally {
+                            slots.release();
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    slots.release();
+                    throw e;
+                }
+            }
+            // Tally finished cases as we go so long runs do not keep every result around
+            while (!futures.isEmpty() && futures.peekFirst().isDone()) {
+                tally.add(awaitResult(testRunId, futures.pollFirst()));
+            }
+        }
+
+        /**
+         * Schedules the case, or records it as not run once scheduling on this
+         * lane has failed, so every case of the run still reports a result.
+         */
+        private void accept(ExecutionPlan testCase) {
+            if (failure == null) {
+                try {
+                    schedule(testCase);
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Lane {} of test run {} failed: ", browser, testRunId, e);
+                    failure = e;
+                }
+            }
+            recordUnscheduled(testCase);
+        }
+
+        private void recordUnscheduled(ExecutionPlan testCase) {
+            if (token.isCancelled()) {
+                tally.add(recordSkipped(testRunId, testCase, browser));
+            } else {
+                String reason = failure != null ? failure.getMessage() : "lane stopped";
+                tally.add(recordNotRun(testRunId, testCase, browser,
+                        TestExecution.TestExecutionStatus.FAILED, LANE_FAILED_MESSAGE.formatted(browser, reason)));
+            }
+        }
+
+        // Cases still buffered when the lane task stopped; only called after join()
+        private void recordLeftovers() {
+            Object item;
+            while ((item = inbox.poll()) != null) {
+                if (item != END) {
+                    recordUnscheduled((ExecutionPlan) item);
+                }
+            }
+        }
+
+        private void finish() {
+            while (!futures.isEmpty()) {
+                tally.add(awaitResult(testRunId, futures.pollFirst()));
+            }
+        }
+
+        private void start(int capacity) {
+            inbox = new LinkedBlockingQueue<>(capacity);
+            try {
+                drainer = laneExecutor.submit(this::drain);
+            } catch (TaskRejectedException e) {
+                log.error("Lane {} of test run {} could not start: no lane thread is free", browser, testRunId);
+                failure = new IllegalStateException("no lane thread is free", e);
+                drainer = CompletableFuture.completedFuture(null);
+            }
+        }
+
+        /**
+         * Cancellation interrupts the feeding thread; it keeps feeding so the
+         * remaining cases are recorded as skipped. Cases offered after the lane
+         * task has ended are recorded as not run on the feeding thread.
+         */
+        private void offer(Object item) {
+            while (!drainer.isDone()) {
+                try {
+                    if (inbox.offer(item, 200, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    log.debug("Interrupted while feeding lane {} of run {}", browser, testRunId);
+                }
+            }
+            if (item != END) {
+                recordUnscheduled((ExecutionPlan) item);
+            }
+        }
+
+        private void drain() {
+            token.register();
+            try {
+                while (true) {
+                    Object item;
+                    try {
+                        item = inbox.take();
+                    } catch (InterruptedException e) {
+                        continue;
+                    }
+                    if (item == END) {
+                        break;
+                    }
+                    accept((ExecutionPlan) item);
+                }
+                finish();
+            } catch (RuntimeException e) {
+                log.error("Lane {} of test run {} failed: ", browser, testRunId, e);
+                failure = e;
+            } finally {
+                token.unregister();
+            }
+        }
+
+        private void join() {
+            while (true) {
+                try {
+                    drainer.get();
+                    return;
+                } catch (InterruptedException e) {
+                    log.debug("Interrupted while waiting for lane {} of run {}", browser, testRunId);
+                } catch (ExecutionException e) {
+                    log.error("Lane {} of test run {} failed: ", browser, testRunId, e.getCause());
+                    if (failure == null) {
+                        failure = new IllegalStateException(String.valueOf(e.getCause()), e.getCause());
+                    }
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return browser + "(" + concurrency + ")";
+        }
+    }
+
+    private static final class RunTally {
+        private int passed;
+        private int failed;
+        private int skipped;
+
+        private void add(RunTally other) {
+            passed += other.passed;
+            failed += other.failed;
+            skipped += other.skipped;
+        }
+
+        private void add(TestExecution execution) {
+            if (execution == null) {
+                failed++;
+            } else if (execution.getStatus() == TestExecution.TestExecutionStatus.PASSED) {
+                passed++;
+            } else if (execution.getStatus() == TestExecution.TestExecutionStatus.SKIPPED) {
+                skipped++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    private record Attempt(TestExecution execution, List<StepExecutor.StepResult> steps) {
+
+        private boolean failed() {
+            return execution.getStatus() == TestExecution.TestExecutionStatus.FAILED;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.ns.selai.execution.plan;
+
+import com.ns.selai.execution.dto.ExecutionRequest;
+import com.ns.selai.execution.dto.ExecutionRequest.TestStep;
+import com.ns.selai.execution.exception.InvalidTestPlanException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class PlanCompilerTest {
+
+    private PlanCompiler planCompiler;
+
+    @BeforeEach
+    void setUp() {
+        planCompiler = new PlanCompiler(2);
+        ReflectionTestUtils.setField(planCompiler, "maxWaitSeconds", 30);
+    }
+
+    @Test
+    void compilesEveryAction() {
+        ExecutionPlan plan = planCompiler.compile(testCase("All actions",
+                action("open_url").url(" https://example.com/login ").build(),
+                on("type", "#user").value("alice").build(),
+                on("clear", "#user").build(),
+                on("select_dropdown", "#plan").value("Team").build(),
+                on("scroll", "//footer").build(),
+                on("click", "button[type='submit']").build(),
+                on("submit", "form").build(),
+                action("wait").value("2").build(),
+                on("assert_text", "#greeting").expectedText("Welcome").build(),
+                on("assert_element_present", "(//li)[1]").build()));
+
+        assertThat(plan.name()).isEqualTo("All actions");
+        assertThat(plan.steps()).extracting(PlannedStep::action).containsExactly(StepAction.OPEN_URL,
+                StepAction.TYPE, StepAction.CLEAR, StepAction.SELECT_DROPDOWN, StepAction.SCROLL,
+                StepAction.CLICK, StepAction.SUBMIT, StepAction.WAIT, StepAction.ASSERT_TEXT,
+                StepAction.ASSERT_ELEMENT_PRESENT);
+        assertThat(((PlannedStep.OpenUrl) plan.steps().get(0)).url()).isEqualTo("https://example.com/login");
+    }
+
+    @Test
+    void rejectsInvalidSteps() {
+        assertRejected(on("hover", "#menu"), "step 1: unknown action 'hover'");
+        assertRejected(action("open_url"), "step 1 (open_url): url is required");
+        assertRejected(action("open_url").url("/login"), "step 1 (open_url): invalid absolute url '/login'");
+        assertRejected(action("wait").value("soon"),
+                "step 1 (wait): value must be a number of seconds between 0 and 30, was 'soon'");
+        assertRejected(action("wait").value("31"),
+                "step 1 (wait): value must be a number of seconds between 0 and 30, was '31'");
+        assertRejected(on("click", " "), "step 1 (click): selector is required");
+        assertRejected(on("click", "div[data-id='1'"), "step 1 (click): invalid CSS selector 'div[data-id='1''");
+        assertRejected(on("click", "> li"), "step 1 (click): invalid CSS selector '> li'");
+        assertRejected(on("click", "//div["), "step 1 (click): invalid XPath '//div['");
+        assertRejected(on("type", "#user"), "step 1 (type): value is required");
+        assertRejected(on("assert_text", "#greeting"), "step 1 (assert_text): expectedText is required");
+        assertRejected(on("select_dropdown", "#plan").value(" "), "step 1 (select_dropdown): value is required");
+    }
+
+    @Test
+    void rejectsTestCasesWithoutNameOrSteps() {
+        InvalidTestPlanException unnamed = catchThrowableOfType(() -> planCompiler.compile(
+                testCase(" ", on("click", "#submit").build())), InvalidTestPlanException.class);
+        InvalidTestPlanException empty = catchThrowableOfType(() -> planCompiler.compile(testCase("Empty")),
+                InvalidTestPlanException.class);
+
+        assertThat(unnamed.getErrors()).containsExactly("Test case name is required");
+        assertThat(empty.getErrors()).containsExactly("Test case 'Empty' has no steps");
+        assertThatThrownBy(() -> planCompiler.compile(List.of()))
+                .isInstanceOf(InvalidTestPlanException.class)
+                .hasMessageContaining("No test cases to execute");
+    }
+
+    @Test
+    void listsTheErrorsOfEveryTestCaseOfASuite() {
+        List<ExecutionRequest.TestCase> suite = Arrays.asList(
+                testCase("Valid", on("click", "#submit").build()),
+                testCase("Broken", action("open_url").build(), null, on("type", "#user").build()),
+                null,
+                testCase("Also broken", on("click", "#a").build(), on("drag", "#b").build()));
+
+        InvalidTestPlanException error = catchThrowableOfType(() -> planCompiler.compile(suite),
+                InvalidTestPlanException.class);
+
+        assertThat(error.getErrors()).containsExactly(
+                "Test case 'Broken' step 1 (open_url): url is required",
+                "Test case 'Broken' step 2 is empty",
+                "Test case 'Broken' step 3 (type): value is required",
+                "Test case 3 is empty",
+                "Test case 'Also broken' step 2: unknown action 'drag'");
+        assertThat(error.getMessage()).startsWith("Invalid test cases (5 error(s)): ");
+    }
+
+    @Test
+    void reusesPlansOfIdenticalTestCases() {
+        ExecutionPlan first = planCompiler.compile(testCase("Login", on("click", "#submit").build()));
+        ExecutionPlan same = planCompiler.compile(testCase("Login", on("click", "#submit").build()));
+        ExecutionPlan other = planCompiler.compile(testCase("Login", on("click", "#cancel").build()));
+
+        assertThat(same).isSameAs(first);
+        assertThat(other).isNotSameAs(first);
+        assertThat(other.contentHash()).isNotEqualTo(first.contentHash());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedPlan() {
+        ExecutionRequest.TestCase a = testCase("A", on("click", "#a").build());
+        ExecutionPlan planA = planCompiler.compile(a);
+        ExecutionPlan planB = planCompiler.compile(testCase("B", on("click", "#b").build()));
+        // Using A makes B the eldest entry, so C evicts B
+        planCompiler.compile(a);
+        planCompiler.compile(testCase("C", on("click", "#c").build()));
+
+        assertThat(planCompiler.compile(a)).isSameAs(planA);
+        assertThat(planCompiler.compile(testCase("B", on("click", "#b").build()))).isNotSameAs(planB);
+    }
+
+    private void assertRejected(TestStep.TestStepBuilder step, String error) {
+        InvalidTestPlanException thrown = catchThrowableOfType(
+                () -> planCompiler.compile(testCase("Case", step.build())), InvalidTestPlanException.class);
+        assertThat(thrown).as(error).isNotNull();
+        assertThat(thrown.getErrors()).containsExactly("Test case 'Case' " + error);
+    }
+
+    private static ExecutionRequest.TestCase testCase(String name, TestStep... steps) {
+        return ExecutionRequest.TestCase.builder()
+                .name(name)
+                .steps(Arrays.asList(steps))
+                .build();
+    }
+
+    private static TestStep.TestStepBuilder action(String action) {
+        return TestStep.builder().action(action);
+    }
+
+    private static TestStep.TestStepBuilder on(String action, String selector) {
+        return action(action).selector(selector);
+    }
+}
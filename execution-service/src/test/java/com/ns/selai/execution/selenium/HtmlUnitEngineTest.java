@@ -0,0 +1,189 @@
+package com.ns.selai.execution.selenium;
+
+import com.ns.selai.execution.dto.ExecutionRequest;
+import com.ns.selai.execution.plan.ExecutionPlan;
+import com.ns.selai.execution.plan.PlanCompiler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs steps on the HtmlUnit engine against fixture pages served from the
+ * test classpath, without network access or a browser install.
+ */
+class HtmlUnitEngineTest {
+
+    private static HttpServer server;
+    private static String baseUrl;
+
+    private final PlanCompiler planCompiler = new PlanCompiler(10);
+    private HtmlUnitEngine engine;
+    private BrowserManager browserManager;
+    private StepExecutor stepExecutor;
+    private WebDriver driver;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            try (InputStream page = HtmlUnitEngineTest.class.getResourceAsStream("/fixtures" + path)) {
+                byte[] body = page == null ? new byte[0] : page.readAllBytes();
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+                exchange.sendResponseHeaders(page == null ? 404 : 200, page == null ? -1 : body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        engine = new HtmlUnitEngine("chrome", "scroll", "chrome");
+        ReflectionTestUtils.setField(engine, "maxSessions", 2);
+        browserManager = new BrowserManager(List.of(engine));
+
+        WaitEngine waitEngine = new WaitEngine(2, "");
+        ReflectionTestUtils.setField(waitEngine, "pollInitialMs", 25L);
+        ReflectionTestUtils.setField(waitEngine, "pollMaxMs", 100L);
+        ReflectionTestUtils.setField(waitEngine, "quietPeriodMs", 50L);
+        ReflectionTestUtils.setField(waitEngine, "pageSettleSeconds", 2L);
+        SelectorHealer selectorHealer = new SelectorHealer(null, waitEngine);
+        StepBatcher stepBatcher = new StepBatcher(selectorHealer);
+        ReflectionTestUtils.setField(stepBatcher, "enabled", true);
+        ReflectionTestUtils.setField(stepBatcher, "minSteps", 2);
+        ScreenshotService screenshotService = new ScreenshotService(mock(ScreenshotWriter.class),
+                mock(ScreenshotStore.class), "always");
+        stepExecutor = new StepExecutor(screenshotService, selectorHealer, waitEngine, stepBatcher);
+
+        driver = browserManager.borrowWebDriver(HtmlUnitEngine.NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        browserManager.invalidateWebDriver(driver);
+    }
+
+    @Test
+    void runsFormFlowWithPageScripts() {
+        ExecutionPlan plan = plan("Sign in",
+                step("open_url", null, null, baseUrl + "/login.html", null),
+                step("type", "#username", "alice", null, null),
+                step("type", "#password", "secret", null, null),
+                step("select_dropdown", "#plan", "Team", null, null),
+                step("click", "#submit", null, null, null),
+                step("assert_text", "#greeting", null, null, "Welcome"),
+                step("assert_text", "#status", null, null, "Ready for alice on Team"));
+
+        List<StepExecutor.StepResult> results = stepExecutor.executeSteps(driver, plan, 1L);
+
+        assertThat(results).hasSize(7).allSatisfy(result -> {
+            assertThat(result.isSuccess()).as(result.getAction() + ": " + result.getMessage()).isTrue();
+            // Nothing is painted, so there is nothing to capture
+            assertThat(result.getScreenshotPath()).isNull();
+        });
+    }
+
+    @Test
+    void hiddenAndDisabledElementsAreNotActionable() {
+        ExecutionPlan hidden = plan("Hidden",
+                step("open_url", null, null, baseUrl + "/login.html", null),
+                step("click", "#hidden", null, null, null));
+        ExecutionPlan disabled = plan("Disabled",
+                step("open_url", null, null, baseUrl + "/login.html", null),
+                step("click", "#disabled", null, null, null));
+
+        StepExecutor.StepResult hiddenClick = stepExecutor.executeSteps(driver, hidden, 1L).get(1);
+        StepExecutor.StepResult disabledClick = stepExecutor.executeSteps(driver, disabled, 1L).get(1);
+
+        assertThat(hiddenClick.isSuccess()).isFalse();
+        assertThat(hiddenClick.getMessage()).contains("(hidden)");
+        assertThat(disabledClick.isSuccess()).isFalse();
+        assertThat(disabledClick.getMessage()).contains("(disabled)");
+    }
+
+    @Test
+    void failedAssertionStopsTheCase() {
+        ExecutionPlan plan = plan("Wrong greeting",
+                step("open_url", null, null, baseUrl + "/welcome.html?username=bob&plan=Free", null),
+                step("assert_text", "#greeting", null, null, "Goodbye"),
+                step("assert_element_present", "#status", null, null, null));
+
+        List<StepExecutor.StepResult> results = stepExecutor.executeSteps(driver, plan, 1L);
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(1).isSuccess()).isFalse();
+        assertThat(results.get(1).getErrorType()).isEqualTo("AssertionError");
+    }
+
+    @Test
+    void returnedSessionIsResetAndReused() {
+        driver.get(baseUrl + "/login.html");
+        WebDriver leased = driver;
+
+        browserManager.returnWebDriver(leased);
+        driver = browserManager.borrowWebDriver(HtmlUnitEngine.NAME);
+
+        assertThat(driver).isSameAs(leased);
+        assertThat(driver.getCurrentUrl()).isEqualTo("about:blank");
+        assertThat(browserManager.getMaxPoolSize(HtmlUnitEngine.NAME)).isEqualTo(2);
+    }
+
+    @Test
+    void casesNeedingARealBrowserGoToTheFallbackEngine() {
+        ExecutionPlan scrolling = plan("Scrolling",
+                step("open_url", null, null, baseUrl + "/login.html", null),
+                step("scroll", "#submit", null, null, null));
+        ExecutionPlan form = plan("Form",
+                step("open_url", null, null, baseUrl + "/login.html", null),
+                step("click", "#submit", null, null, null));
+
+        assertThat(engine.canRun(scrolling)).isFalse();
+        assertThat(engine.canRun(form)).isTrue();
+        assertThat(engine.getFallbackEngine()).isEqualTo("chrome");
+        // Failed cases are only rerun on the fallback engine when configured
+        assertThat(engine.rerunsFailures()).isFalse();
+        assertThat(browserManager.getEngine(HtmlUnitEngine.NAME)).isSameAs(engine);
+        assertThat(browserManager.getEngine("chrome")).isInstanceOf(LocalBrowserEngine.class);
+    }
+
+    private ExecutionPlan plan(String name, ExecutionRequest.TestStep... steps) {
+        return planCompiler.compile(ExecutionRequest.TestCase.builder()
+                .name(name)
+                .steps(Arrays.asList(steps))
+                .build());
+    }
+
+    private static ExecutionRequest.TestStep step(String action, String selector, String value, String url,
+            String expectedText) {
+        return ExecutionRequest.TestStep.builder()
+                .action(action)
+                .selector(selector)
+                .value(value)
+                .url(url)
+                .expectedText(expectedText)
+                .build();
+    }
+}
@@ -3,12 +3,25 @@ package com.ns.selai.orchestration.client;
 import com.ns.selai.orchestration.dto.ai.AiAnalysisRequest;
 import com.ns.selai.orchestration.dto.ai.AiAnalysisResponse;
 import com.ns.selai.orchestration.dto.ExternalServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Client to communicate with Python AI Engine
@@ -18,15 +31,93 @@ import java.time.Duration;
 public class AiEngineClient {
 
     private final WebClient webClient;
+    private final AiResponseCache responseCache;
+    private final SingleFlight<AiResponseCache.CacheKey, AiAnalysisResponse> inFlightRequests = new SingleFlight<>();
+    private final SingleFlight<AiResponseCache.CacheKey, AiAnalysisResponse.TestCase> inFlightStreams =
+            new SingleFlight<>();
+    private final Counter upstreamRequests;
+    private final Counter coalescedRequests;
 
     @Value("${ai.engine.base-url:http://localhost:5000}")
     private String aiEngineBaseUrl;
 
-    public AiEngineClient(WebClient.Builder webClientBuilder) {
+    @Value("${ai.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${ai.cache.fingerprint-page:false}")
+    private boolean fingerprintPage;
+
+    public AiEngineClient(WebClient.Builder webClientBuilder, AiResponseCache responseCache,
+            MeterRegistry meterRegistry) {
         this.webClient = webClientBuilder.build();
+        this.responseCache = responseCache;
+        this.upstreamRequests = meterRegistry.counter("ai.engine.requests", "type", "upstream");
+        this.coalescedRequests = meterRegistry.counter("ai.engine.requests", "type", "coalesced");
+        Gauge.builder("ai.engine.requests.in-flight", this,
+                client -> client.inFlightRequests.inFlightCount() + client.inFlightStreams.inFlightCount())
+                .register(meterRegistry);
+    }
+
+    public Mono<AiAnalysisResponse> analyzeAndGenerateTests(String url, String browser, String testType) {
+        return analyzeAndGenerateTests(url, browser, testType, null, false);
+    }
+
+    /**
+     * Returns generated tests for the page, serving them from the cache when the
+     * same (url, browser, testType, fingerprint) was analyzed recently. Concurrent
+     * requests for the same key share a single AI Engine call. The call is
+     * non-blocking; no thread is held while the AI Engine works.
+     *
+     * @param contentFingerprint optional page content fingerprint; computed from the
+     *                           page body when absent and ai.cache.fingerprint-page is on
+     * @param bypassCache        skip the cache lookup and always call the AI Engine
+     */
+    public Mono<AiAnalysisResponse> analyzeAndGenerateTests(String url, String browser, String testType,
+            String contentFingerprint, boolean bypassCache) {
+        return cacheKey(url, browser, testType, contentFingerprint).flatMap(key -> {
+            if (!cacheEnabled) {
+                return callCoalesced(key);
+            }
+            if (bypassCache) {
+                responseCache.recordBypass();
+                return callCoalesced(key);
+            }
+            return Mono.fromCallable(() -> responseCache.get(key))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(cached -> {
+                        if (cached.isPresent()) {
+                            log.info("Using cached AI test suite for URL: {}", url);
+                            return Mono.just(cached.get());
+                        }
+                        return callCoalesced(key);
+                    });
+        });
+    }
+
+    private Mono<AiResponseCache.CacheKey> cacheKey(String url, String browser, String testType,
+            String contentFingerprint) {
+        Mono<Optional<String>> fingerprint = contentFingerprint == null && fingerprintPage
+                ? fingerprintPage(url)
+                : Mono.just(Optional.ofNullable(contentFingerprint));
+        return fingerprint.map(value -> new AiResponseCache.CacheKey(url, browser, testType, value.orElse(null)));
     }
 
-    public AiAnalysisResponse analyzeAndGenerateTests(String url, String browser, String testType) {
+    private Mono<AiAnalysisResponse> callCoalesced(AiResponseCache.CacheKey key) {
+        return inFlightRequests.execute(key, () -> {
+            upstreamRequests.increment();
+            return callAiEngine(key.url(), key.browser(), key.testType())
+                    .doOnNext(response -> {
+                        if (cacheEnabled) {
+                            responseCache.put(key, response);
+                        }
+                    });
+        }, () -> {
+            log.info("Joining in-flight AI Engine request for URL: {}", key.url());
+            coalescedRequests.increment();
+        });
+    }
+
+    private Mono<AiAnalysisResponse> callAiEngine(String url, String browser, String testType) {
         log.info("Calling AI Engine to analyze URL: {}", url);
 
         AiAnalysisRequest request = AiAnalysisRequest.builder()
@@ -37,23 +128,110 @@ public class AiEngineClient {
                         .build())
                 .build();
 
+        return webClient.post()
+                .uri(aiEngineBaseUrl + "/api/generate-tests")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(AiAnalysisResponse.class)
+                .timeout(Duration.ofMinutes(5))
+                .doOnNext(response -> log.info("AI Engine returned {} test cases",
+                        response.getTests() != null ? response.getTests().size() : 0))
+                .onErrorMap(e -> !(e instanceof ExternalServiceException), e -> {
+                    log.error("Failed to call AI Engine: ", e);
+                    return new ExternalServiceException("AI Engine communication failed: " + e.getMessage(), e);
+                });
+    }
+
+    /**
+     * Streams generated test cases as the AI Engine produces them. The engine
+     * answers with NDJSON (or a chunked JSON array) and each test case is emitted
+     * as soon as it has been parsed. Suites are keyed like
+     * {@link #analyzeAndGenerateTests}: a cached suite is replayed from the cache,
+     * concurrent streams for the same key share one AI Engine call, and a freshly
+     * streamed suite is cached once the stream completes with at least one case.
+     */
+    public Flux<AiAnalysisResponse.TestCase> streamGeneratedTests(String url, String browser, String testType,
+            String contentFingerprint, boolean bypassCache) {
+        return cacheKey(url, browser, testType, contentFingerprint).flatMapMany(key -> {
+            if (!cacheEnabled) {
+                return streamCoalesced(key);
+            }
+            if (bypassCache) {
+                responseCache.recordBypass();
+                return streamCoalesced(key);
+            }
+            return Mono.fromCallable(() -> responseCache.get(key))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapMany(cached -> {
+                        if (cached.isPresent()) {
+                            log.info("Replaying cached AI test suite for URL: {}", url);
+                            return Flux.fromIterable(cached.get().getTests());
+                        }
+                        return streamCoalesced(key);
+                    });
+        });
+    }
+
+    private Flux<AiAnalysisResponse.TestCase> streamCoalesced(AiResponseCache.CacheKey key) {
+        return inFlightStreams.executeMany(key, () -> {
+            upstreamRequests.increment();
+            List<AiAnalysisResponse.TestCase> received = new ArrayList<>();
+            return callAiEngineStreaming(key.url(), key.browser(), key.testType())
+                    .doOnNext(received::add)
+                    .doOnComplete(() -> {
+                        if (cacheEnabled && !received.isEmpty()) {
+                            responseCache.put(key, new AiAnalysisResponse(received));
+                        }
+                    });
+        }, () -> {
+            log.info("Joining in-flight AI Engine stream for URL: {}", key.url());
+            coalescedRequests.increment();
+        });
+    }
+
+    private Flux<AiAnalysisResponse.TestCase> callAiEngineStreaming(String url, String browser, String testType) {
+        log.info("Streaming generated tests from AI Engine for URL: {}", url);
+
+        AiAnalysisRequest request = AiAnalysisRequest.builder()
+                .url(url)
+                .context(AiAnalysisRequest.Context.builder()
+                        .browser(browser)
+                        .testType(testType)
+                        .build())
+                .build();
+
+        return webClient.post()
+                .uri(aiEngineBaseUrl + "/api/generate-tests/stream")
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToFlux(AiAnalysisResponse.TestCase.class)
+                .timeout(Duration.ofMinutes(5))
+                .onErrorMap(e -> !(e instanceof ExternalServiceException), e -> {
+                    log.error("Failed to stream from AI Engine: ", e);
+                    return new ExternalServiceException("AI Engine communication failed: " + e.getMessage(), e);
+                });
+    }
+
+    private Mono<Optional<String>> fingerprintPage(String url) {
+        return webClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .timeout(Duration.ofSeconds(10))
+                .map(body -> Optional.of(sha256(body)))
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(e -> {
+                    log.warn("Could not fingerprint page {}, caching without fingerprint: {}", url, e.getMessage());
+                    return Mono.just(Optional.empty());
+                });
+    }
+
+    private static String sha256(byte[] body) {
         try {
-            AiAnalysisResponse response = webClient.post()
-                    .uri(aiEngineBaseUrl + "/api/generate-tests")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(AiAnalysisResponse.class)
-                    .timeout(Duration.ofMinutes(5))
-                    .block();
-
-            log.info("AI Engine returned {} test cases",
-                    response != null && response.getTests() != null ? response.getTests().size() : 0);
-
-            return response;
-
-        } catch (Exception e) {
-            log.error("Failed to call AI Engine: ", e);
-            throw new ExternalServiceException("AI Engine communication failed: " + e.getMessage(), e);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
@@ -0,0 +1,261 @@
+package com.ns.selai.orchestration.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ns.selai.orchestration.dto.ai.AiAnalysisResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier cache of AI generated test suites keyed by (url, browser, testType,
+ * page fingerprint). The memory tier is a size-bounded LRU map; the optional disk
+ * tier stores one JSON file per key so cached suites survive restarts. Entries
+ * expire after the configured TTL in both tiers. Expired files are deleted when
+ * read, and a periodic sweep removes expired files and keeps the disk tier
+ * within its maximum number of entries, oldest first.
+ */
+@Component
+@Slf4j
+public class AiResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final Map<CacheKey, CachedResponse> memory;
+    private final Duration ttl;
+    private final boolean diskEnabled;
+    private final Path diskPath;
+    private final int maxDiskEntries;
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+    private final Counter bypasses;
+
+    public AiResponseCache(ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${ai.cache.max-entries:500}") int maxEntries,
+            @Value("${ai.cache.ttl-minutes:60}") long ttlMinutes,
+            @Value("${ai.cache.disk.enabled:false}") boolean diskEnabled,
+            @Value("${ai.cache.disk.path:./ai-cache}") String diskPath,
+            @Value("${ai.cache.disk.max-entries:5000}") int maxDiskEntries) {
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.diskEnabled = diskEnabled;
+        this.diskPath = Paths.get(diskPath);
+        this.maxDiskEntries = maxDiskEntries;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        this.memoryHits = meterRegistry.counter("ai.cache.requests", "result", "hit", "tier", "memory");
+        this.diskHits = meterRegistry.counter("ai.cache.requests", "result", "hit", "tier", "disk");
+        this.misses = meterRegistry.counter("ai.cache.requests", "result", "miss", "tier", "none");
+        this.bypasses = meterRegistry.counter("ai.cache.requests", "result", "bypass", "tier", "none");
+        Gauge.builder("ai.cache.size", this, AiResponseCache::size).register(meterRegistry);
+    }
+
+    public Optional<AiAnalysisResponse> get(CacheKey key) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            CachedResponse cached = memory.get(key);
+            if (cached != null) {
+                if (!isExpired(cached, now)) {
+                    memoryHits.increment();
+                    return Optional.of(cached.getResponse());
+                }
+                memory.remove(key);
+            }
+        }
+
+        if (diskEnabled) {
+            CachedResponse cached = readFromDisk(key);
+            if (cached != null && !isExpired(cached, now)) {
+                synchronized (memory) {
+                    memory.put(key, cached);
+                }
+                diskHits.increment();
+                return Optional.of(cached.getResponse());
+            }
+            if (cached != null) {
+                deleteQuietly(diskFile(key));
+            }
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(CacheKey key, AiAnalysisResponse response) {
+        if (response == null || response.getTests() == null || response.getTests().isEmpty()) {
+            return;
+        }
+        CachedResponse cached = new CachedResponse(System.currentTimeMillis(), response);
+        synchronized (memory) {
+            memory.put(key, cached);
+        }
+        if (diskEnabled) {
+            Schedulers.boundedElastic().schedule(() -> writeToDisk(key, cached));
+        }
+    }
+
+    public void recordBypass() {
+        bypasses.increment();
+    }
+
+    public int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    private boolean isExpired(CachedResponse cached, long now) {
+        return now - cached.getStoredAt() > ttl.toMillis();
+    }
+
+    /**
+     * Deletes expired files (and leftover temp files) from the disk tier, then
+     * the oldest files beyond the maximum number of entries. File modification
+     * times are the store times, so files are not parsed.
+     */
+    @Scheduled(fixedDelayString = "${ai.cache.disk.sweep-interval-ms:600000}")
+    public void sweepDisk() {
+        if (!diskEnabled || !Files.isDirectory(diskPath)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        List<Path> entries = new ArrayList<>();
+        Map<Path, Long> modifiedAt = new HashMap<>();
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(diskPath)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                long modified = lastModified(file);
+                if (modified < cutoff) {
+                    deleted += deleteQuietly(file) ? 1 : 0;
+                } else if (file.getFileName().toString().endsWith(".json")) {
+                    entries.add(file);
+                    modifiedAt.put(file, modified);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep AI cache directory {}: {}", diskPath, e.getMessage());
+            return;
+        }
+        if (entries.size() > maxDiskEntries) {
+            entries.sort(Comparator.comparing(modifiedAt::get));
+            for (Path file : entries.subList(0, entries.size() - maxDiskEntries)) {
+                deleted += deleteQuietly(file) ? 1 : 0;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Removed {} expired or excess AI cache files from {}", deleted, diskPath);
+        }
+    }
+
+    private CachedResponse readFromDisk(CacheKey key) {
+        Path file = diskFile(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), CachedResponse.class);
+        } catch (Exception e) {
+            log.warn("Deleting unreadable AI cache entry {}: {}", file, e.getMessage());
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private Path diskFile(CacheKey key) {
+        return diskPath.resolve(key.hash() + ".json");
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            // Deleted concurrently; treat as current so it is left alone
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete AI cache file {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeToDisk(CacheKey key, CachedResponse cached) {
+        try {
+            Files.createDirectories(diskPath);
+            Path target = diskFile(key);
+            Path temp = Files.createTempFile(diskPath, key.hash(), ".tmp");
+            objectMapper.writeValue(temp.toFile(), cached);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("Failed to write AI cache entry to disk: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Identifies a generated suite. The fingerprint is optional and, when set,
+     * distinguishes different versions of the same page.
+     */
+    public record CacheKey(String url, String browser, String testType, String fingerprint) {
+
+        public CacheKey {
+            browser = browser != null ? browser.toLowerCase() : null;
+            testType = testType != null ? testType.toLowerCase() : null;
+        }
+
+        String hash() {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                String raw = String.join("\n", String.valueOf(url), String.valueOf(browser),
+                        String.valueOf(testType), String.valueOf(fingerprint));
+                return HexFormat.of().formatHex(digest.digest(raw.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class CachedResponse {
+        private long storedAt;
+        private AiAnalysisResponse response;
+    }
+}
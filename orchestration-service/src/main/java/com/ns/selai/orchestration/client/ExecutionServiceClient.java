@@ -6,6 +6,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.List;
@@ -22,32 +25,68 @@ public class ExecutionServiceClient {
     @Value("${execution.service.base-url:http://localhost:8083}")
     private String executionServiceBaseUrl;
 
+    @Value("${execution.service.busy-retries:5}")
+    private int busyRetries;
+
     public ExecutionServiceClient(WebClient.Builder webClientBuilder) {
         this.webClient = webClientBuilder.build();
     }
 
-    public void executeTests(Long testRunId, AiAnalysisResponse aiResponse) {
-        log.info("Sending test cases to Execution Service for test run: {}", testRunId);
+    /**
+     * Queues the test cases on the Execution Service. Retries with backoff while
+     * the Execution Service answers 429 because its queue is full.
+     */
+    public Mono<Void> executeTests(Long testRunId, AiAnalysisResponse aiResponse, List<String> browsers) {
+        return executeTestCases(testRunId, aiResponse.getTests(), browsers);
+    }
 
-        try {
-            ExecutionRequest request = new ExecutionRequest(testRunId, aiResponse.getTests());
+    /**
+     * Queues a subset of a run's test cases. Used by the streaming pipeline to
+     * forward test cases while the AI Engine is still generating the rest. Each
+     * test case runs once per browser.
+     */
+    public Mono<Void> executeTestCases(Long testRunId, List<AiAnalysisResponse.TestCase> testCases,
+            List<String> browsers) {
+        return Mono.defer(() -> {
+            log.info("Sending {} test cases to Execution Service for test run: {} on {}", testCases.size(), testRunId,
+                    browsers);
+            ExecutionRequest request = new ExecutionRequest(testRunId, testCases, browsers);
 
-            webClient.post()
+            return webClient.post()
                     .uri(executionServiceBaseUrl + "/api/execute")
                     .bodyValue(request)
                     .retrieve()
                     .bodyToMono(Void.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
-
-            log.info("Test execution started for test run: {}", testRunId);
+                    .timeout(Duration.ofSeconds(30));
+        })
+                .retryWhen(Retry.backoff(busyRetries, Duration.ofSeconds(2))
+                        .filter(WebClientResponseException.TooManyRequests.class::isInstance))
+                .doOnSuccess(ignored -> log.info("Test execution started for test run: {}", testRunId))
+                .onErrorMap(e -> {
+                    log.error("Failed to start test execution: ", e);
+                    return new ExternalServiceException("Execution Service communication failed: " + e.getMessage(),
+                            e);
+                });
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to start test execution: ", e);
-            throw new ExternalServiceException("Execution Service communication failed: " + e.getMessage(), e);
-        }
+    /**
+     * Asks the Execution Service to cancel a run's test cases. Failures are only
+     * logged: the run is already stopped on this side.
+     */
+    public Mono<Void> cancelExecution(Long testRunId) {
+        return webClient.post()
+                .uri(executionServiceBaseUrl + "/api/execute/{testRunId}/cancel", testRunId)
+                .retrieve()
+                .bodyToMono(Void.class)
+                .timeout(Duration.ofSeconds(10))
+                .doOnSuccess(ignored -> log.info("Cancellation sent to Execution Service for test run: {}", testRunId))
+                .onErrorResume(e -> {
+                    log.warn("Failed to cancel execution of test run {}: {}", testRunId, e.getMessage());
+                    return Mono.empty();
+                });
     }
 
-    private record ExecutionRequest(Long testRunId, List<AiAnalysisResponse.TestCase> testCases) {
+    private record ExecutionRequest(Long testRunId, List<AiAnalysisResponse.TestCase> testCases,
+            List<String> browsers) {
     }
 }
@@ -0,0 +1,80 @@
+package com.ns.selai.orchestration.client;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first caller starts
+ * the loader and every caller that arrives while it is in flight receives the
+ * same result or the same failure. Streams are shared the same way: callers
+ * that join late get the elements emitted so far replayed, then the rest.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<K, Flux<V>> inFlightStreams = new ConcurrentHashMap<>();
+
+    /**
+     * @param onShared invoked when the call joined an in-flight load instead of starting one
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> loader, Runnable onShared) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> call = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+            if (existing != null) {
+                onShared.run();
+                return Mono.fromFuture(existing, true);
+            }
+
+            loader.get().subscribe(
+                    value -> {
+                        inFlight.remove(key, call);
+                        call.complete(value);
+                    },
+                    error -> {
+                        inFlight.remove(key, call);
+                        call.completeExceptionally(error);
+                    },
+                    () -> {
+                        if (inFlight.remove(key, call)) {
+                            call.complete(null);
+                        }
+                    });
+            return Mono.fromFuture(call, true);
+        });
+    }
+
+    /**
+     * @param onShared invoked when the call joined an in-flight stream instead of starting one
+     */
+    public Flux<V> executeMany(K key, Supplier<Flux<V>> loader, Runnable onShared) {
+        return Flux.defer(() -> {
+            boolean[] started = {false};
+            Flux<V> stream = inFlightStreams.computeIfAbsent(key, k -> {
+                started[0] = true;
+                return share(key, loader.get());
+            });
+            if (!started[0]) {
+                onShared.run();
+            }
+            return stream;
+        });
+    }
+
+    public int inFlightCount() {
+        return inFlight.size() + inFlightStreams.size();
+    }
+
+    // Runs the source once for all subscribers and forgets it once it has terminated
+    private Flux<V> share(K key, Flux<V> source) {
+        AtomicReference<Flux<V>> shared = new AtomicReference<>();
+        shared.set(source.doFinally(signal -> inFlightStreams.remove(key, shared.get())).cache());
+        return shared.get();
+    }
+}
@@ -1,7 +1,15 @@
 package com.ns.selai.orchestration.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Enable async processing for test run orchestration
@@ -9,5 +17,43 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-    // Spring Boot default async executor will be used
+
+    public static final String TEST_RUN_EXECUTOR = "testRunExecutor";
+
+    @Value("${orchestration.executor.core-size:5}")
+    private int corePoolSize;
+
+    @Value("${orchestration.executor.max-size:10}")
+    private int maxPoolSize;
+
+    @Value("${orchestration.executor.queue-capacity:500}")
+    private int queueCapacity;
+
+    /**
+     * Dedicated, bounded executor for the blocking steps of the test run pipeline.
+     * Submissions beyond the queue capacity are rejected instead of queued. Actuator publishes its pool
+     * and queue metrics under executor.* tagged with name=testRunExecutor.
+     */
+    @Bean(name = TEST_RUN_EXECUTOR)
+    public ThreadPoolTaskExecutor testRunExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("test-run-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Reactor view of the test run executor, used by the non-blocking pipeline to
+     * run its blocking repository calls.
+     */
+    @Bean
+    public Scheduler testRunScheduler(@Qualifier(TEST_RUN_EXECUTOR) ThreadPoolTaskExecutor testRunExecutor) {
+        return Schedulers.fromExecutorService(testRunExecutor.getThreadPoolExecutor(), "test-run");
+    }
 }
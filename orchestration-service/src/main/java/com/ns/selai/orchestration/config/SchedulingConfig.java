@@ -0,0 +1,12 @@
+package com.ns.selai.orchestration.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enable scheduled polling of the durable test run queue
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
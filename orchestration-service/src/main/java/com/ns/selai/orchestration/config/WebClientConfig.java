@@ -0,0 +1,54 @@
+package com.ns.selai.orchestration.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Connection pool shared by the WebClients that call the AI Engine and the
+ * Execution Service. Requests beyond max-connections wait for a free connection
+ * instead of opening new sockets, and fail once the pending queue is full.
+ */
+@Configuration
+public class WebClientConfig {
+
+    @Value("${orchestration.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${orchestration.http.pending-acquire-max:1000}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${orchestration.http.pending-acquire-timeout-ms:10000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${orchestration.http.max-idle-time-seconds:30}")
+    private long maxIdleTimeSeconds;
+
+    @Value("${orchestration.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider orchestrationConnectionProvider() {
+        return ConnectionProvider.builder("orchestration-http")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleTimeSeconds))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClientCustomizer connectionPoolCustomizer(ConnectionProvider orchestrationConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(orchestrationConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs);
+        return builder -> builder.clientConnector(new ReactorClientHttpConnector(httpClient));
+    }
+}
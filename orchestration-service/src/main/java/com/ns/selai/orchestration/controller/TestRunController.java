@@ -1,15 +1,27 @@
 package com.ns.selai.orchestration.controller;
 
+import com.ns.selai.orchestration.dto.ExecutionJobUpdate;
+import com.ns.selai.orchestration.dto.RunProgressEvent;
+import com.ns.selai.orchestration.dto.TestCaseResultUpdate;
+import com.ns.selai.orchestration.dto.TestRunPage;
 import com.ns.selai.orchestration.dto.TestRunRequest;
 import com.ns.selai.orchestration.dto.TestRunResponse;
+import com.ns.selai.orchestration.model.TestRun.TestRunStatus;
 import com.ns.selai.orchestration.service.TestOrchestrationService;
 import lombok.RequiredArgsConstructor;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -24,6 +36,9 @@ public class TestRunController {
 
     private final TestOrchestrationService orchestrationService;
 
+    @Value("${orchestration.progress.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
     @PostMapping
     public ResponseEntity<TestRunResponse> startTestRun(@Valid @RequestBody TestRunRequest request) {
         log.info("REST request to start test run for project: {}", request.getProjectId());
@@ -38,6 +53,25 @@ public class TestRunController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Server-sent events with the progress of a test run, replacing polling of GET /{id}.
+     * Starts with a SNAPSHOT event and completes when the run reaches a terminal status.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<RunProgressEvent>> streamTestRunProgress(@PathVariable Long id) {
+        log.info("REST request to stream progress of test run: {}", id);
+        Flux<ServerSentEvent<RunProgressEvent>> events = orchestrationService.streamTestRunProgress(id)
+                .map(event -> ServerSentEvent.<RunProgressEvent>builder()
+                        .event(event.getType().name())
+                        .data(event)
+                        .build());
+        // Heartbeat comments keep idle connections open through proxies
+        return events.publish(shared -> Flux.merge(shared,
+                Flux.interval(Duration.ofSeconds(heartbeatSeconds))
+                        .map(tick -> ServerSentEvent.<RunProgressEvent>builder().comment("heartbeat").build())
+                        .takeUntilOther(shared.then())));
+    }
+
     @GetMapping("/project/{projectId}")
     public ResponseEntity<List<TestRunResponse>> getTestRunsByProject(@PathVariable Long projectId) {
         log.info("REST request to get test runs for project: {}", projectId);
@@ -45,6 +79,22 @@ public class TestRunController {
         return ResponseEntity.ok(responses);
     }
 
+    /**
+     * Cursor-paginated run history for the dashboard list view.
+     * GET /api/test-runs/project/{projectId}/history?limit=&cursor=&status=&from=&to=
+     */
+    @GetMapping("/project/{projectId}/history")
+    public ResponseEntity<TestRunPage> getTestRunHistory(
+            @PathVariable Long projectId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) TestRunStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("REST request to get test run history for project: {}", projectId);
+        return ResponseEntity.ok(orchestrationService.getTestRunHistory(projectId, cursor, limit, status, from, to));
+    }
+
     @PostMapping("/{id}/stop")
     public ResponseEntity<Void> stopTestRun(@PathVariable Long id) {
         log.info("REST request to stop test run: {}", id);
@@ -62,6 +112,35 @@ public class TestRunController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Incremental test case results from the Execution Service. Each result
+     * carries an idempotency key, so retried batches are not counted twice.
+     * The run completes when the last result arrives.
+     */
+    @PostMapping("/{id}/test-results")
+    public ResponseEntity<ResultsAck> recordTestResults(
+            @PathVariable Long id,
+            @RequestBody List<TestCaseResultUpdate> results) {
+        int recorded = orchestrationService.recordTestResults(id, results);
+        return ResponseEntity.ok(new ResultsAck(recorded, results.size() - recorded));
+    }
+
+    /**
+     * Sent by the Execution Service when one of the run's jobs ends, after the
+     * job's results. A failed job fails the run, since some of its test cases
+     * will never report.
+     */
+    @PostMapping("/{id}/execution-jobs")
+    public ResponseEntity<Void> recordExecutionJob(
+            @PathVariable Long id,
+            @RequestBody ExecutionJobUpdate update) {
+        orchestrationService.recordExecutionJob(id, update);
+        return ResponseEntity.ok().build();
+    }
+
     public record ResultsUpdate(int passed, int failed) {
     }
+
+    public record ResultsAck(int recorded, int duplicates) {
+    }
 }
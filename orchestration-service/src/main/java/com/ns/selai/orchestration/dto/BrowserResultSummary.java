@@ -0,0 +1,20 @@
+package com.ns.selai.orchestration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reported test case results of one browser lane of a run
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrowserResultSummary {
+    private String browser;
+    private int passedTests;
+    private int failedTests;
+    private int skippedTests;
+}
@@ -0,0 +1,20 @@
+package com.ns.selai.orchestration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of an execution job of a run, sent by the Execution Service after
+ * the job's test case results
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionJobUpdate {
+    private String jobId;
+    private String state; // COMPLETED or FAILED
+    private String errorMessage;
+}
@@ -28,6 +28,18 @@ public class GlobalExceptionHandler {
                 "External service communication failed: " + ex.getMessage());
     }
 
+    @ExceptionHandler(TestRunRejectedException.class)
+    public ResponseEntity<Object> handleTestRunRejectedException(TestRunRejectedException ex) {
+        log.warn("TestRunRejectedException: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursorException(InvalidCursorException ex) {
+        log.warn("InvalidCursorException: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
     private ResponseEntity<Object> buildErrorResponse(HttpStatus status, String message) {
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", LocalDateTime.now());
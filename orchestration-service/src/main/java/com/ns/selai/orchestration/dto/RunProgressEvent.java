@@ -0,0 +1,36 @@
+package com.ns.selai.orchestration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress update pushed to subscribers of a test run
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunProgressEvent {
+    private Long testRunId;
+    private EventType type;
+    private String status;
+    private Integer totalTests;
+    private Integer passedTests;
+    private Integer failedTests;
+    private Integer skippedTests;
+    private String testCaseName; // Set for TEST_RESULT events
+    private String testCaseStatus; // Set for TEST_RESULT events
+    private String testCaseBrowser; // Set for TEST_RESULT events
+    private String message;
+    private LocalDateTime timestamp;
+
+    public enum EventType {
+        SNAPSHOT,
+        STATUS,
+        TEST_RESULT
+    }
+}
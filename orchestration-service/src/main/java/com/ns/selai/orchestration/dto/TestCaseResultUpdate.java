@@ -0,0 +1,24 @@
+package com.ns.selai.orchestration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of one test case as reported by the Execution Service
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseResultUpdate {
+    private String key; // Idempotency key, unique per test case of a run
+    private String testName;
+    private String browser;
+    private String engine; // Engine the result came from, when a fallback engine ran the case
+    private String status; // PASSED, FAILED or SKIPPED
+    private String errorMessage;
+    private Long executionTimeMs;
+    private String screenshotPath;
+}
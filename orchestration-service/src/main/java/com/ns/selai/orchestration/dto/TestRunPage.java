@@ -0,0 +1,20 @@
+package com.ns.selai.orchestration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of test run history. Pass nextCursor back to fetch the following page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunPage {
+    private List<TestRunSummary> items;
+    private String nextCursor; // null on the last page
+}
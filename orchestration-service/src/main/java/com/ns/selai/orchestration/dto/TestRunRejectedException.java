@@ -0,0 +1,11 @@
+package com.ns.selai.orchestration.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TestRunRejectedException extends RuntimeException {
+    public TestRunRejectedException(String message) {
+        super(message);
+    }
+}
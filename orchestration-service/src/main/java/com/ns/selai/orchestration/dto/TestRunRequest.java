@@ -8,6 +8,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 
+import java.util.List;
+
 /**
  * Request to start a test run
  */
@@ -20,9 +22,14 @@ public class TestRunRequest {
     private Long projectId;
     @NotBlank(message = "URL cannot be empty")
     private String url;
-    @Pattern(regexp = "chrome|firefox|edge", message = "Browser must be chrome, firefox, or edge")
-    private String browser; // chrome, firefox, edge
+    @Pattern(regexp = "chrome|firefox|edge|htmlunit", message = "Browser must be chrome, firefox, edge, or htmlunit")
+    private String browser; // chrome, firefox, edge, htmlunit (in-JVM engine for smoke runs)
+    private List<@Pattern(regexp = "chrome|firefox|edge|htmlunit",
+            message = "Browsers must be chrome, firefox, edge, or htmlunit")
+            String> browsers; // Matrix mode: the suite runs once per browser, in parallel lanes
     @Pattern(regexp = "smoke|regression|functional", message = "Test type must be smoke, regression, or functional")
     private String testType; // smoke, regression, functional
     private String userId; // For tracking who initiated the test
+    private Boolean bypassCache; // Force a fresh AI analysis instead of a cached suite
+    private String contentFingerprint; // Optional page content hash used in the AI cache key
 }
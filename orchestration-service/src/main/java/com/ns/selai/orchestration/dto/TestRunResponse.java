@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -17,11 +18,16 @@ public class TestRunResponse {
     private String url; // Added for completeness
     private String status;
     private String browser;
+    private List<String> browsers; // Browser lanes of the run
     private String testType; // Added for completeness
     private LocalDateTime startedAt;
     private LocalDateTime completedAt;
     private Integer totalTests;
     private Integer passedTests;
     private Integer failedTests;
+    private Integer skippedTests;
+    private List<BrowserResultSummary> browserResults; // Reported results per browser lane
     private String errorMessage;
+    private Integer priority;
+    private Long queuePosition; // 1-based, set while the run waits in the queue
 }
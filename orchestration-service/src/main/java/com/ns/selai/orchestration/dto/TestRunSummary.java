@@ -0,0 +1,26 @@
+package com.ns.selai.orchestration.dto;
+
+import com.ns.selai.orchestration.model.TestRun.TestRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns shown in the test run history list
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunSummary {
+    private Long id;
+    private TestRunStatus status;
+    private String browser;
+    private String testType;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private Integer totalTests;
+    private Integer passedTests;
+    private Integer failedTests;
+}
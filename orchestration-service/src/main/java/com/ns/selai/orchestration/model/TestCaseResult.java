@@ -0,0 +1,61 @@
+package com.ns.selai.orchestration.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result of one test case, reported by the Execution Service while the run is
+ * in progress. The result key is chosen by the sender and makes redelivered
+ * results idempotent.
+ */
+@Entity
+@Table(name = "test_case_results", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_test_case_results_key", columnNames = {"test_run_id", "result_key"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "test_run_id", nullable = false)
+    private Long testRunId;
+
+    @Column(name = "result_key", nullable = false)
+    private String resultKey;
+
+    @Column(name = "test_name", nullable = false)
+    private String testName;
+
+    @Column(name = "browser")
+    private String browser;
+
+    // Engine the result came from; differs from the browser when a fallback engine ran the case
+    @Column(name = "engine")
+    private String engine;
+
+    // PASSED, FAILED or SKIPPED
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "execution_time_ms")
+    private Long executionTimeMs;
+
+    @Column(name = "screenshot_path")
+    private String screenshotPath;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+}
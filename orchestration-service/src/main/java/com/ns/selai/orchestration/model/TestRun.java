@@ -10,7 +10,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "test_runs")
+@Table(name = "test_runs", indexes = {
+        @Index(name = "idx_test_runs_project_started", columnList = "project_id, started_at DESC, id DESC")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -37,6 +39,10 @@ public class TestRun {
     @Column(name = "browser")
     private String browser;
 
+    // Comma-separated browser lanes of a matrix run; the suite runs once per browser
+    @Column(name = "browsers")
+    private String browsers;
+
     @CreationTimestamp
     @Column(name = "started_at")
     private LocalDateTime startedAt;
@@ -44,6 +50,10 @@ public class TestRun {
     @Column(name = "completed_at")
     private LocalDateTime completedAt;
 
+    // Last status change, total update or result of a running run; used to find runs that stopped progressing
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
     @Column(name = "total_tests")
     private Integer totalTests;
 
@@ -53,9 +63,18 @@ public class TestRun {
     @Column(name = "failed_tests")
     private Integer failedTests;
 
+    @Column(name = "skipped_tests")
+    private Integer skippedTests;
+
     @Column(name = "error_message", columnDefinition = "TEXT")
     private String errorMessage;
 
+    @Column(name = "bypass_cache")
+    private Boolean bypassCache;
+
+    @Column(name = "content_fingerprint")
+    private String contentFingerprint;
+
     // Add relationship later if needed
     // @OneToMany(mappedBy = "testRun", cascade = CascadeType.ALL)
     // private List<TestExecution> testExecutions;
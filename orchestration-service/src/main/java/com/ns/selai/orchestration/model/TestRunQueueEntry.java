@@ -0,0 +1,64 @@
+package com.ns.selai.orchestration.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable queue entry for a test run that still has to be processed. Rows are
+ * claimed by orchestration nodes with a time-limited lease and deleted once the
+ * pipeline has dispatched the run. Entries carry the run's project and priority
+ * class so the dispatcher can schedule them fairly across projects.
+ */
+@Entity
+@Table(name = "test_run_queue", indexes = {
+        @Index(name = "idx_test_run_queue_status_lease", columnList = "status, lease_expires_at"),
+        @Index(name = "idx_test_run_queue_status_priority", columnList = "status, priority, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunQueueEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "test_run_id", nullable = false, unique = true)
+    private Long testRunId;
+
+    @Column(name = "project_id")
+    private Long projectId;
+
+    // Lower values are scheduled first
+    @Column(name = "priority")
+    private Integer priority;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private QueueStatus status;
+
+    @Column(name = "owner_id")
+    private String ownerId;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public enum QueueStatus {
+        QUEUED,
+        CLAIMED
+    }
+}
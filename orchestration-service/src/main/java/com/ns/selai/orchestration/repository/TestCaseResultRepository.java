@@ -0,0 +1,35 @@
+package com.ns.selai.orchestration.repository;
+
+import com.ns.selai.orchestration.model.TestCaseResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TestCaseResultRepository extends JpaRepository<TestCaseResult, Long> {
+
+    // Store a result unless one with the same key was already received; returns 0 for duplicates
+    @Modifying
+    @Query(value = "INSERT INTO test_case_results (test_run_id, result_key, test_name, browser, engine, status, "
+            + "error_message, execution_time_ms, screenshot_path, received_at) "
+            + "VALUES (:testRunId, :resultKey, :testName, :browser, :engine, :status, :errorMessage, "
+            + ":executionTimeMs, :screenshotPath, :receivedAt) ON CONFLICT (test_run_id, result_key) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("testRunId") Long testRunId, @Param("resultKey") String resultKey,
+            @Param("testName") String testName, @Param("browser") String browser, @Param("engine") String engine,
+            @Param("status") String status,
+            @Param("errorMessage") String errorMessage, @Param("executionTimeMs") Long executionTimeMs,
+            @Param("screenshotPath") String screenshotPath, @Param("receivedAt") LocalDateTime receivedAt);
+
+    List<TestCaseResult> findByTestRunIdOrderById(Long testRunId);
+
+    // Result counts of a run per browser and status: [browser, status, count]
+    @Query("SELECT r.browser, r.status, COUNT(r) FROM TestCaseResult r WHERE r.testRunId = :testRunId "
+            + "GROUP BY r.browser, r.status")
+    List<Object[]> countByBrowserAndStatus(@Param("testRunId") Long testRunId);
+}
@@ -0,0 +1,21 @@
+package com.ns.selai.orchestration.repository;
+
+import com.ns.selai.orchestration.dto.TestRunSummary;
+import com.ns.selai.orchestration.model.TestRun.TestRunStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keyset-paginated history queries that read only the list view columns
+ */
+public interface TestRunHistoryRepository {
+
+    /**
+     * Returns up to {@code limit} runs of a project ordered by (startedAt, id)
+     * descending, starting after the given cursor position. Filters and cursor
+     * values may be null.
+     */
+    List<TestRunSummary> findHistoryPage(Long projectId, LocalDateTime afterStartedAt, Long afterId,
+            TestRunStatus status, LocalDateTime from, LocalDateTime to, int limit);
+}
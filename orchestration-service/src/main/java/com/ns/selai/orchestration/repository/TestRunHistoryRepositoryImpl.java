@@ -0,0 +1,68 @@
+package com.ns.selai.orchestration.repository;
+
+import com.ns.selai.orchestration.dto.TestRunSummary;
+import com.ns.selai.orchestration.model.TestRun;
+import com.ns.selai.orchestration.model.TestRun.TestRunStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the history query with only the predicates that apply, so the planner
+ * can use idx_test_runs_project_started for both the filter and the ordering.
+ */
+public class TestRunHistoryRepositoryImpl implements TestRunHistoryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TestRunSummary> findHistoryPage(Long projectId, LocalDateTime afterStartedAt, Long afterId,
+            TestRunStatus status, LocalDateTime from, LocalDateTime to, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TestRunSummary> query = cb.createQuery(TestRunSummary.class);
+        Root<TestRun> run = query.from(TestRun.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(run.get("projectId"), projectId));
+        if (afterStartedAt != null && afterId != null) {
+            // (started_at, id) < (:afterStartedAt, :afterId)
+            predicates.add(cb.or(
+                    cb.lessThan(run.get("startedAt"), afterStartedAt),
+                    cb.and(cb.equal(run.get("startedAt"), afterStartedAt), cb.lessThan(run.get("id"), afterId))));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(run.get("status"), status));
+        }
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(run.get("startedAt"), from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(run.get("startedAt"), to));
+        }
+
+        query.select(cb.construct(TestRunSummary.class,
+                        run.get("id"),
+                        run.get("status"),
+                        run.get("browser"),
+                        run.get("testType"),
+                        run.get("startedAt"),
+                        run.get("completedAt"),
+                        run.get("totalTests"),
+                        run.get("passedTests"),
+                        run.get("failedTests")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(run.get("startedAt")), cb.desc(run.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
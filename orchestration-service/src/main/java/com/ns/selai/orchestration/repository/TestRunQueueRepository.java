@@ -0,0 +1,57 @@
+package com.ns.selai.orchestration.repository;
+
+import com.ns.selai.orchestration.model.TestRun.TestRunStatus;
+import com.ns.selai.orchestration.model.TestRunQueueEntry;
+import com.ns.selai.orchestration.model.TestRunQueueEntry.QueueStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TestRunQueueRepository extends JpaRepository<TestRunQueueEntry, Long> {
+
+    // Lock queued entries and entries whose lease has expired, skipping rows other nodes hold
+    @Query(value = "SELECT * FROM test_run_queue "
+            + "WHERE status = 'QUEUED' OR (status = 'CLAIMED' AND lease_expires_at < :now) "
+            + "ORDER BY priority, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<TestRunQueueEntry> lockClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Extend the lease of entries this node is still processing
+    @Modifying
+    @Query("UPDATE TestRunQueueEntry e SET e.leaseExpiresAt = :leaseExpiresAt "
+            + "WHERE e.ownerId = :ownerId AND e.testRunId IN :testRunIds")
+    int renewLeases(@Param("ownerId") String ownerId, @Param("testRunIds") Collection<Long> testRunIds,
+            @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Remove a processed entry, only if this node still owns it
+    @Modifying
+    @Query("DELETE FROM TestRunQueueEntry e WHERE e.testRunId = :testRunId AND e.ownerId = :ownerId")
+    int deleteClaimed(@Param("testRunId") Long testRunId, @Param("ownerId") String ownerId);
+
+    long countByStatus(QueueStatus status);
+
+    Optional<TestRunQueueEntry> findByTestRunId(Long testRunId);
+
+    /**
+     * Active runs per project: [projectId, count]. A run is active while it is
+     * held under a live lease, and after its queue entry is removed for as long
+     * as it is still running on the Execution Service.
+     */
+    @Query("SELECT r.projectId, COUNT(r) FROM TestRun r WHERE r.status = :running OR r.id IN "
+            + "(SELECT e.testRunId FROM TestRunQueueEntry e WHERE e.status = :claimed AND e.leaseExpiresAt >= :now) "
+            + "GROUP BY r.projectId")
+    List<Object[]> countActiveByProject(@Param("running") TestRunStatus running,
+            @Param("claimed") QueueStatus claimed, @Param("now") LocalDateTime now);
+
+    // Queued entries that are scheduled before the given one by priority order
+    @Query("SELECT COUNT(e) FROM TestRunQueueEntry e WHERE e.status = :status "
+            + "AND (e.priority < :priority OR (e.priority = :priority AND e.id < :id))")
+    long countAhead(@Param("status") QueueStatus status, @Param("priority") int priority, @Param("id") Long id);
+}
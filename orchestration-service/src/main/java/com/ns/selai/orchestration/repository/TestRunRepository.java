@@ -3,12 +3,18 @@ package com.ns.selai.orchestration.repository;
 import com.ns.selai.orchestration.model.TestRun;
 import com.ns.selai.orchestration.model.TestRun.TestRunStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface TestRunRepository extends JpaRepository<TestRun, Long> {
+public interface TestRunRepository extends JpaRepository<TestRun, Long>, TestRunHistoryRepository {
 
     // Find test runs by project ID
     List<TestRun> findByProjectId(Long projectId);
@@ -21,4 +27,77 @@ public interface TestRunRepository extends JpaRepository<TestRun, Long> {
 
     // Find recent test runs for a project (ordered by started_at desc)
     List<TestRun> findByProjectIdOrderByStartedAtDesc(Long projectId);
+
+    // Move a run to a non-terminal status, only from one of the expected statuses
+    @Transactional
+    @Modifying
+    @Query("UPDATE TestRun r SET r.status = :status, r.lastActivityAt = :now "
+            + "WHERE r.id = :id AND r.status IN :fromStatuses")
+    int transitionStatus(@Param("id") Long id, @Param("status") TestRunStatus status,
+            @Param("now") LocalDateTime now, @Param("fromStatuses") Collection<TestRunStatus> fromStatuses);
+
+    // Move a run to a terminal status unless it already reached one
+    @Transactional
+    @Modifying
+    @Query("UPDATE TestRun r SET r.status = :status, r.completedAt = :completedAt "
+            + "WHERE r.id = :id AND r.status IN :fromStatuses")
+    int completeRun(@Param("id") Long id, @Param("status") TestRunStatus status,
+            @Param("completedAt") LocalDateTime completedAt,
+            @Param("fromStatuses") Collection<TestRunStatus> fromStatuses);
+
+    // Record final results unless the run already reached a terminal status
+    @Transactional
+    @Modifying
+    @Query("UPDATE TestRun r SET r.passedTests = :passed, r.failedTests = :failed, r.status = :status, "
+            + "r.completedAt = :completedAt WHERE r.id = :id AND r.status IN :fromStatuses")
+    int completeWithResults(@Param("id") Long id, @Param("passed") int passed, @Param("failed") int failed,
+            @Param("status") TestRunStatus status, @Param("completedAt") LocalDateTime completedAt,
+            @Param("fromStatuses") Collection<TestRunStatus> fromStatuses);
+
+    // Fail a run with an error unless it already reached a terminal status
+    @Transactional
+    @Modifying
+    @Query("UPDATE TestRun r SET r.status = :status, r.errorMessage = :errorMessage, "
+            + "r.completedAt = :completedAt WHERE r.id = :id AND r.status IN :fromStatuses")
+    int completeWithError(@Param("id") Long id, @Param("status") TestRunStatus status,
+            @Param("errorMessage") String errorMessage, @Param("completedAt") LocalDateTime completedAt,
+            @Param("fromStatuses") Collection<TestRunStatus> fromStatuses);
+
+    /**
+     * Completes a running run with the given status once results for all of its
+     * test cases are counted and its failed count is within the given range.
+     * The counts are checked by the UPDATE itself, so whichever of the result and
+     * total updates commits last completes the run, and only once.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE TestRun r SET r.status = :status, r.completedAt = :completedAt "
+            + "WHERE r.id = :id AND r.status = :running AND r.totalTests > 0 "
+            + "AND COALESCE(r.passedTests, 0) + COALESCE(r.failedTests, 0) + COALESCE(r.skippedTests, 0) "
+            + ">= r.totalTests AND COALESCE(r.failedTests, 0) BETWEEN :minFailed AND :maxFailed")
+    int completeIfAllReported(@Param("id") Long id, @Param("status") TestRunStatus status,
+            @Param("completedAt") LocalDateTime completedAt, @Param("running") TestRunStatus running,
+            @Param("minFailed") int minFailed, @Param("maxFailed") int maxFailed);
+
+    // Add newly received test case results to the counts
+    @Transactional
+    @Modifying
+    @Query("UPDATE TestRun r SET r.passedTests = COALESCE(r.passedTests, 0) + :passed, "
+            + "r.failedTests = COALESCE(r.failedTests, 0) + :failed, "
+            + "r.skippedTests = COALESCE(r.skippedTests, 0) + :skipped, r.lastActivityAt = :now WHERE r.id = :id")
+    int addResults(@Param("id") Long id, @Param("passed") int passed, @Param("failed") int failed,
+            @Param("skipped") int skipped, @Param("now") LocalDateTime now);
+
+    // Record the generated test count only while the run is still in the given status
+    @Transactional
+    @Modifying
+    @Query("UPDATE TestRun r SET r.totalTests = :totalTests, r.lastActivityAt = :now "
+            + "WHERE r.id = :id AND r.status = :status")
+    int updateTotalTests(@Param("id") Long id, @Param("totalTests") int totalTests,
+            @Param("status") TestRunStatus status, @Param("now") LocalDateTime now);
+
+    // Runs in the given status with no activity since the cutoff
+    @Query("SELECT r.id FROM TestRun r WHERE r.status = :status "
+            + "AND COALESCE(r.lastActivityAt, r.startedAt) < :cutoff")
+    List<Long> findIdleRunIds(@Param("status") TestRunStatus status, @Param("cutoff") LocalDateTime cutoff);
 }
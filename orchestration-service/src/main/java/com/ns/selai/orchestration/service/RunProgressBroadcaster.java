@@ -0,0 +1,96 @@
+package com.ns.selai.orchestration.service;
+
+import com.ns.selai.orchestration.dto.RunProgressEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory fan-out of test run progress events. Each run has one multicast
+ * sink shared by all of its subscribers; every subscriber gets its own bounded
+ * buffer, and a subscriber that falls behind loses its oldest events instead of
+ * slowing down the publisher or other subscribers.
+ * <p>
+ * Subscribers of a run are counted under the map's per-key lock, so a sink is
+ * only dropped when its last subscriber leaves and never while another one is
+ * joining.
+ */
+@Component
+@Slf4j
+public class RunProgressBroadcaster {
+
+    private static final Sinks.EmitFailureHandler RETRY_ON_CONTENTION =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    @Value("${orchestration.progress.subscriber-buffer:256}")
+    private int subscriberBuffer;
+
+    /**
+     * Live events for a run, starting from the moment of subscription.
+     */
+    public Flux<RunProgressEvent> subscribe(Long testRunId) {
+        return Flux.defer(() -> {
+            Channel channel = join(testRunId);
+            return channel.sink.asFlux()
+                    .onBackpressureBuffer(subscriberBuffer,
+                            dropped -> log.debug("Dropping progress event for slow subscriber of run {}", testRunId),
+                            BufferOverflowStrategy.DROP_OLDEST)
+                    .doFinally(signal -> leave(testRunId, channel));
+        });
+    }
+
+    public void publish(RunProgressEvent event) {
+        Channel channel = channels.get(event.getTestRunId());
+        if (channel != null) {
+            channel.sink.emitNext(event, RETRY_ON_CONTENTION);
+        }
+    }
+
+    /**
+     * Publishes the final event of a run and completes all of its subscriptions.
+     */
+    public void publishTerminal(RunProgressEvent event) {
+        Channel channel = channels.remove(event.getTestRunId());
+        if (channel != null) {
+            channel.sink.emitNext(event, RETRY_ON_CONTENTION);
+            channel.sink.emitComplete(RETRY_ON_CONTENTION);
+        }
+    }
+
+    public int activeRunCount() {
+        return channels.size();
+    }
+
+    private Channel join(Long testRunId) {
+        return channels.compute(testRunId, (id, channel) -> {
+            Channel joined = channel != null ? channel : new Channel();
+            joined.subscribers++;
+            return joined;
+        });
+    }
+
+    // A channel that was already completed by publishTerminal is no longer in the map
+    private void leave(Long testRunId, Channel channel) {
+        channels.computeIfPresent(testRunId, (id, current) -> {
+            if (current != channel) {
+                return current;
+            }
+            return --current.subscribers == 0 ? null : current;
+        });
+    }
+
+    private static final class Channel {
+        private final Sinks.Many<RunProgressEvent> sink = Sinks.many().multicast().directBestEffort();
+        // Only changed inside compute calls on the channel map
+        private int subscribers;
+    }
+}
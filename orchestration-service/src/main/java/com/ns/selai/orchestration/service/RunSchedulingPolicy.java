@@ -0,0 +1,143 @@
+package com.ns.selai.orchestration.service;
+
+import com.ns.selai.orchestration.model.TestRunQueueEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decides which queued test runs to start next. Runs are ordered by priority
+ * class first (derived from the test type, e.g. smoke before regression). Within
+ * a class, free capacity goes to the project with the lowest share of running
+ * runs relative to its weight, so one project's large backlog cannot starve the
+ * others. Projects never exceed their concurrency cap, and no more than
+ * max-running runs are active at once. A run is active until it completes, not
+ * just while it is dispatched: the Execution Service queue runs jobs in arrival
+ * order, so priorities and caps only hold if runs wait here instead.
+ */
+@Component
+@Slf4j
+public class RunSchedulingPolicy {
+
+    private final Map<String, Integer> priorities;
+    private final Map<Long, Integer> projectWeights;
+    private final Map<Long, Integer> projectCaps;
+    private final int defaultPriority;
+    private final int defaultProjectCap;
+    private final int maxRunning;
+
+    public RunSchedulingPolicy(
+            @Value("${orchestration.scheduling.priorities:smoke:0,sanity:0,functional:1,regression:2}") String priorities,
+            @Value("${orchestration.scheduling.default-priority:1}") int defaultPriority,
+            @Value("${orchestration.scheduling.project-weights:}") String projectWeights,
+            @Value("${orchestration.scheduling.project-caps:}") String projectCaps,
+            @Value("${orchestration.scheduling.default-project-cap:50}") int defaultProjectCap,
+            @Value("${orchestration.scheduling.max-running:50}") int maxRunning) {
+        this.priorities = new HashMap<>();
+        parse(priorities).forEach((testType, priority) -> this.priorities.put(testType.toLowerCase(Locale.ROOT),
+                priority));
+        this.projectWeights = parseByProject(projectWeights);
+        this.projectCaps = parseByProject(projectCaps);
+        this.defaultPriority = defaultPriority;
+        this.defaultProjectCap = defaultProjectCap;
+        this.maxRunning = maxRunning;
+    }
+
+    public int priorityFor(String testType) {
+        if (testType == null) {
+            return defaultPriority;
+        }
+        return priorities.getOrDefault(testType.trim().toLowerCase(Locale.ROOT), defaultPriority);
+    }
+
+    public int priorityOf(TestRunQueueEntry entry) {
+        return entry.getPriority() != null ? entry.getPriority() : defaultPriority;
+    }
+
+    /**
+     * Picks up to {@code limit} entries from {@code candidates}, which must be
+     * sorted by priority and then queue order.
+     *
+     * @param active runs per project that are active already
+     */
+    public List<TestRunQueueEntry> select(List<TestRunQueueEntry> candidates, Map<Long, Long> active, int limit) {
+        List<TestRunQueueEntry> remaining = new ArrayList<>(candidates);
+        Map<Long, Long> load = new HashMap<>(active);
+        List<TestRunQueueEntry> selected = new ArrayList<>();
+        long room = maxRunning - active.values().stream().mapToLong(Long::longValue).sum();
+
+        while (selected.size() < Math.min(limit, room)) {
+            TestRunQueueEntry best = null;
+            double bestShare = 0;
+            for (TestRunQueueEntry entry : remaining) {
+                Long projectId = entry.getProjectId();
+                long running = load.getOrDefault(projectId, 0L);
+                if (running >= capFor(projectId)) {
+                    continue;
+                }
+                if (best != null && priorityOf(entry) != priorityOf(best)) {
+                    break;
+                }
+                double share = (double) running / weightFor(projectId);
+                if (best == null || share < bestShare) {
+                    best = entry;
+                    bestShare = share;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            remaining.remove(best);
+            load.merge(best.getProjectId(), 1L, Long::sum);
+            selected.add(best);
+        }
+        return selected;
+    }
+
+    private int weightFor(Long projectId) {
+        return Math.max(1, projectWeights.getOrDefault(projectId, 1));
+    }
+
+    private int capFor(Long projectId) {
+        return projectCaps.getOrDefault(projectId, defaultProjectCap);
+    }
+
+    private static Map<Long, Integer> parseByProject(String value) {
+        Map<Long, Integer> byProject = new HashMap<>();
+        parse(value).forEach((projectId, number) -> {
+            try {
+                byProject.put(Long.parseLong(projectId), number);
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring scheduling setting for invalid project ID '{}'", projectId);
+            }
+        });
+        return byProject;
+    }
+
+    // Parses "key:value,key:value"
+    private static Map<String, Integer> parse(String value) {
+        Map<String, Integer> parsed = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return parsed;
+        }
+        for (String pair : value.split(",")) {
+            String[] parts = pair.split(":");
+            if (parts.length != 2) {
+                log.warn("Ignoring malformed scheduling setting '{}'", pair);
+                continue;
+            }
+            try {
+                parsed.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed scheduling setting '{}'", pair);
+            }
+        }
+        return parsed;
+    }
+}
@@ -2,22 +2,49 @@ package com.ns.selai.orchestration.service;
 
 import com.ns.selai.orchestration.client.AiEngineClient;
 import com.ns.selai.orchestration.client.ExecutionServiceClient;
+import com.ns.selai.orchestration.dto.BrowserResultSummary;
+import com.ns.selai.orchestration.dto.ExecutionJobUpdate;
+import com.ns.selai.orchestration.dto.InvalidCursorException;
+import com.ns.selai.orchestration.dto.RunProgressEvent;
+import com.ns.selai.orchestration.dto.TestCaseResultUpdate;
 import com.ns.selai.orchestration.dto.TestRunRequest;
+import com.ns.selai.orchestration.dto.TestRunPage;
 import com.ns.selai.orchestration.dto.TestRunResponse;
+import com.ns.selai.orchestration.dto.TestRunSummary;
 import com.ns.selai.orchestration.dto.ai.AiAnalysisResponse;
 import com.ns.selai.orchestration.model.TestRun;
 import com.ns.selai.orchestration.model.TestRun.TestRunStatus;
-import com.ns.selai.orchestration.dto.ExternalServiceException;
+import com.ns.selai.orchestration.model.TestRunQueueEntry;
+import com.ns.selai.orchestration.model.TestRunQueueEntry.QueueStatus;
 import com.ns.selai.orchestration.dto.TestRunNotFoundException;
+import com.ns.selai.orchestration.dto.TestRunRejectedException;
+import com.ns.selai.orchestration.repository.TestCaseResultRepository;
+import com.ns.selai.orchestration.repository.TestRunQueueRepository;
 import com.ns.selai.orchestration.repository.TestRunRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -28,78 +55,231 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TestOrchestrationService {
 
+	private static final List<TestRunStatus> ACTIVE_STATUSES = List.of(TestRunStatus.PENDING, TestRunStatus.RUNNING);
+
 	private final TestRunRepository testRunRepository;
 	private final AiEngineClient aiEngineClient;
 	private final ExecutionServiceClient executionServiceClient;
+	private final TestRunQueueRepository testRunQueueRepository;
+	private final Scheduler testRunScheduler;
+	private final RunProgressBroadcaster progressBroadcaster;
+	private final RunSchedulingPolicy schedulingPolicy;
+	private final TestCaseResultRepository testCaseResultRepository;
+
+	@Value("${orchestration.queue.max-queued:1000}")
+	private long maxQueuedRuns;
+
+	@Value("${orchestration.history.max-page-size:200}")
+	private int maxHistoryPageSize;
+
+	@Value("${orchestration.browser.project-defaults:}")
+	private String projectDefaultBrowsers;
+
+	@Value("${orchestration.run.stale-after-minutes:60}")
+	private long staleAfterMinutes;
+
+	@Value("${ai.engine.streaming.enabled:false}")
+	private boolean streamingEnabled;
+
+	@Value("${ai.engine.streaming.batch-size:5}")
+	private int streamingBatchSize;
 
+	@Value("${ai.engine.streaming.batch-wait-ms:500}")
+	private long streamingBatchWaitMs;
+
+	/**
+	 * Persists a PENDING run together with its durable queue entry in one
+	 * transaction. TestRunDispatcher picks the entry up and runs the pipeline.
+	 */
 	@Transactional
 	public TestRunResponse startTestRun(TestRunRequest request) {
 		log.info("=== Starting new test run for project: {} ===", request.getProjectId());
 
+		if (testRunQueueRepository.countByStatus(QueueStatus.QUEUED) >= maxQueuedRuns) {
+			log.warn("Rejecting test run for project {}, run queue is full", request.getProjectId());
+			throw new TestRunRejectedException(
+					"Too many test runs waiting (" + maxQueuedRuns + "), test run was not started. Retry later.");
+		}
+
+		List<String> browsers = requestedBrowsers(request);
 		TestRun testRun = TestRun.builder()
 				.projectId(request.getProjectId())
 				.url(request.getUrl())
 				.testType(request.getTestType())
 				.status(TestRunStatus.PENDING)
-				.browser(request.getBrowser() != null ? request.getBrowser() : "chrome")
+				.browser(browsers.get(0))
+				.browsers(String.join(",", browsers))
 				.totalTests(0)
 				.passedTests(0)
 				.failedTests(0)
+				.skippedTests(0)
+				.bypassCache(Boolean.TRUE.equals(request.getBypassCache()))
+				.contentFingerprint(request.getContentFingerprint())
 				.build();
 
 		testRun = testRunRepository.save(testRun);
-		log.info("Test run created with ID: {}", testRun.getId());
-
-		processTestRunAsync(testRun.getId(), request);
+		TestRunQueueEntry entry = testRunQueueRepository.save(TestRunQueueEntry.builder()
+				.testRunId(testRun.getId())
+				.projectId(testRun.getProjectId())
+				.priority(schedulingPolicy.priorityFor(testRun.getTestType()))
+				.status(QueueStatus.QUEUED)
+				.attempts(0)
+				.build());
+		log.info("Test run created and queued with ID: {} (priority {})", testRun.getId(), entry.getPriority());
 
-		return convertToResponse(testRun);
+		return withQueuePosition(convertToResponse(testRun), entry);
 	}
 
-	@Async
-	public void processTestRunAsync(Long testRunId, TestRunRequest request) {
-		log.info("=== Processing test run {} asynchronously ===", testRunId);
-
-		try {
-			updateTestRunStatus(testRunId, TestRunStatus.RUNNING);
-
-			log.info("Step 1: Calling AI Engine to analyze URL: {}, Browser: {}, TestType: {}", request.getUrl(),
-					request.getBrowser(), request.getTestType());
-			AiAnalysisResponse aiResponse = aiEngineClient.analyzeAndGenerateTests(
-					request.getUrl(),
-					request.getBrowser(),
-					request.getTestType());
+	/**
+	 * Builds the pipeline for a claimed run: AI test generation followed by
+	 * dispatch to the Execution Service. Network calls are non-blocking; the
+	 * blocking repository calls run on the test run scheduler, so no thread is
+	 * held while waiting on the AI Engine or the Execution Service.
+	 */
+	public Mono<Void> processTestRun(Long testRunId) {
+		return onDb(() -> testRunRepository.findById(testRunId)
+				.orElseThrow(() -> new TestRunNotFoundException("Test run not found with ID: " + testRunId)))
+				.flatMap(queuedRun -> {
+					log.info("=== Processing test run {} ===", testRunId);
+					if (isTerminal(queuedRun.getStatus())) {
+						log.info("Test run {} is already {}, skipping", testRunId, queuedRun.getStatus());
+						return Mono.empty();
+					}
+
+					Mono<TestRun> running = onDb(() -> {
+						updateTestRunStatus(testRunId, TestRunStatus.RUNNING);
+						return queuedRun;
+					});
+					if (streamingEnabled) {
+						return running.flatMap(run -> streamGeneratedTests(testRunId, run));
+					}
+
+					return running
+							.flatMap(run -> {
+								log.info("Step 1: Calling AI Engine to analyze URL: {}, Browser: {}, TestType: {}",
+										run.getUrl(), run.getBrowser(), run.getTestType());
+								return aiEngineClient.analyzeAndGenerateTests(
+										run.getUrl(),
+										run.getBrowser(),
+										run.getTestType(),
+										run.getContentFingerprint(),
+										Boolean.TRUE.equals(run.getBypassCache()));
+							})
+							.defaultIfEmpty(new AiAnalysisResponse())
+							.flatMap(aiResponse -> dispatchGeneratedTests(testRunId, browsersOf(queuedRun), aiResponse));
+				})
+				.doOnSuccess(ignored -> log.info("=== Test run {} processing complete ===", testRunId))
+				.onErrorResume(TestRunNotFoundException.class, e -> {
+					log.error("Test run {} not found during async processing: {}", testRunId, e.getMessage());
+					return Mono.empty();
+				})
+				.onErrorResume(e -> {
+					log.error("Error processing test run {}: ", testRunId, e);
+					return onDb(() -> {
+						updateTestRunWithError(testRunId, e.getMessage());
+						return testRunId;
+					}).then();
+				});
+	}
 
-			if (aiResponse == null || aiResponse.getTests() == null || aiResponse.getTests().isEmpty()) {
-				log.error("AI Engine returned no test cases");
+	private Mono<Void> dispatchGeneratedTests(Long testRunId, List<String> browsers, AiAnalysisResponse aiResponse) {
+		if (aiResponse.getTests() == null || aiResponse.getTests().isEmpty()) {
+			log.error("AI Engine returned no test cases");
+			return onDb(() -> {
 				updateTestRunWithError(testRunId, "AI Engine returned no test cases");
-				return;
-			}
-
-			log.info("AI Engine generated {} test cases", aiResponse.getTests().size());
-
-			TestRun testRun = testRunRepository.findById(testRunId)
-					.orElseThrow(() -> new TestRunNotFoundException("Test run not found with ID: " + testRunId));
-			testRun.setTotalTests(aiResponse.getTests().size());
-			testRunRepository.save(testRun);
+				return testRunId;
+			}).then();
+		}
 
-			log.info("Step 2: Sending {} tests to Execution Service", aiResponse.getTests().size());
-			executionServiceClient.executeTests(testRunId, aiResponse);
+		log.info("AI Engine generated {} test cases", aiResponse.getTests().size());
+
+		// Every test case runs once per browser lane
+		return onDb(() -> updateTotalTests(testRunId, aiResponse.getTests().size() * browsers.size(),
+				"AI Engine generated " + aiResponse.getTests().size() + " test cases" + lanesSuffix(browsers)))
+				.flatMap(running -> {
+					if (!running) {
+						log.info("Test run {} is no longer running, not sending tests to Execution Service",
+								testRunId);
+						return Mono.<Void>empty();
+					}
+					log.info("Step 2: Sending {} tests to Execution Service", aiResponse.getTests().size());
+					return executionServiceClient.executeTests(testRunId, aiResponse, browsers);
+				});
+	}
 
-			log.info("=== Test run {} processing complete ===", testRunId);
+	/**
+	 * Streaming variant of the pipeline: test cases are forwarded to the
+	 * Execution Service in small batches while the AI Engine is still generating
+	 * the rest, so generation and execution overlap.
+	 */
+	private Mono<Void> streamGeneratedTests(Long testRunId, TestRun run) {
+		log.info("Step 1: Streaming tests from AI Engine for URL: {}, Browser: {}, TestType: {}",
+				run.getUrl(), run.getBrowser(), run.getTestType());
+		AtomicInteger forwarded = new AtomicInteger();
+		List<String> browsers = browsersOf(run);
+
+		return aiEngineClient.streamGeneratedTests(
+						run.getUrl(),
+						run.getBrowser(),
+						run.getTestType(),
+						run.getContentFingerprint(),
+						Boolean.TRUE.equals(run.getBypassCache()))
+				.bufferTimeout(streamingBatchSize, Duration.ofMillis(streamingBatchWaitMs))
+				.concatMap(batch -> {
+					log.info("Step 2: Forwarding {} streamed tests to Execution Service", batch.size());
+					return executionServiceClient.executeTestCases(testRunId, batch, browsers)
+							.doOnSuccess(ignored -> forwarded.addAndGet(batch.size()));
+				})
+				.then(Mono.defer(() -> {
+					int total = forwarded.get();
+					if (total == 0) {
+						log.error("AI Engine returned no test cases");
+						return onDb(() -> {
+							updateTestRunWithError(testRunId, "AI Engine returned no test cases");
+							return testRunId;
+						}).then();
+					}
+					log.info("AI Engine streamed {} test cases", total);
+					return onDb(() -> {
+						// Results of the early batches may all be in before the total is known
+						if (updateTotalTests(testRunId, total * browsers.size(),
+								"AI Engine streamed " + total + " test cases" + lanesSuffix(browsers))) {
+							completeIfAllReported(testRunId);
+						}
+						return testRunId;
+					}).then();
+				}));
+	}
 
-		} catch (TestRunNotFoundException e) {
-			log.error("Test run {} not found during async processing: {}", testRunId, e.getMessage());
-		} catch (Exception e) {
-			log.error("Error processing test run {}: ", testRunId, e);
-			updateTestRunWithError(testRunId, e.getMessage());
-		}
+	private <T> Mono<T> onDb(Callable<T> call) {
+		return Mono.fromCallable(call).subscribeOn(testRunScheduler);
 	}
 
 	public TestRunResponse getTestRun(Long id) {
 		log.info("Fetching test run: {}", id);
 		TestRun testRun = testRunRepository.findById(id)
 				.orElseThrow(() -> new TestRunNotFoundException("Test run not found with ID: " + id));
-		return convertToResponse(testRun);
+		TestRunResponse response = convertToResponse(testRun);
+		response.setBrowserResults(browserResults(id));
+		if (testRun.getStatus() == TestRunStatus.PENDING) {
+			testRunQueueRepository.findByTestRunId(id).ifPresent(entry -> withQueuePosition(response, entry));
+		}
+		return response;
+	}
+
+	/**
+	 * Adds the priority and, while the run is still waiting, its position in
+	 * priority order. Fair sharing between projects may start it slightly
+	 * earlier or later than the position suggests.
+	 */
+	private TestRunResponse withQueuePosition(TestRunResponse response, TestRunQueueEntry entry) {
+		int priority = schedulingPolicy.priorityOf(entry);
+		response.setPriority(priority);
+		if (entry.getStatus() == QueueStatus.QUEUED) {
+			response.setQueuePosition(
+					testRunQueueRepository.countAhead(QueueStatus.QUEUED, priority, entry.getId()) + 1);
+		}
+		return response;
 	}
 
 	public List<TestRunResponse> getTestRunsByProject(Long projectId) {
@@ -110,59 +290,398 @@ public class TestOrchestrationService {
 				.collect(Collectors.toList());
 	}
 
-	@Transactional
+	/**
+	 * Returns one page of a project's run history, newest first. Pages are
+	 * addressed by an opaque cursor encoding the (startedAt, id) of the last row
+	 * of the previous page, so each page costs one index range scan regardless of
+	 * how deep into the history it is.
+	 */
+	public TestRunPage getTestRunHistory(Long projectId, String cursor, int limit, TestRunStatus status,
+			LocalDateTime from, LocalDateTime to) {
+		int pageSize = Math.max(1, Math.min(limit, maxHistoryPageSize));
+		log.info("Fetching test run history for project: {} (limit {}, cursor {})", projectId, pageSize, cursor);
+
+		LocalDateTime afterStartedAt = null;
+		Long afterId = null;
+		if (cursor != null && !cursor.isBlank()) {
+			String[] position = decodeCursor(cursor);
+			afterStartedAt = LocalDateTime.parse(position[0]);
+			afterId = Long.parseLong(position[1]);
+		}
+
+		List<TestRunSummary> rows = testRunRepository.findHistoryPage(projectId, afterStartedAt, afterId, status,
+				from, to, pageSize + 1);
+		boolean hasMore = rows.size() > pageSize;
+		List<TestRunSummary> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+		String nextCursor = null;
+		if (hasMore) {
+			TestRunSummary last = items.get(items.size() - 1);
+			nextCursor = encodeCursor(last.getStartedAt(), last.getId());
+		}
+		return TestRunPage.builder()
+				.items(new ArrayList<>(items))
+				.nextCursor(nextCursor)
+				.build();
+	}
+
+	private String encodeCursor(LocalDateTime startedAt, Long id) {
+		String raw = startedAt + "|" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String[] decodeCursor(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] position = raw.split("\\|");
+			LocalDateTime.parse(position[0]);
+			Long.parseLong(position[1]);
+			return position;
+		} catch (Exception e) {
+			throw new InvalidCursorException("Invalid history cursor: " + cursor);
+		}
+	}
+
+	/**
+	 * Stops a queued or running run. The run is marked STOPPED first, so the
+	 * pipeline stops dispatching, then the Execution Service is asked to cancel
+	 * the test cases it is already running.
+	 */
 	public void stopTestRun(Long id) {
 		log.info("Stopping test run: {}", id);
-		TestRun testRun = testRunRepository.findById(id)
-				.orElseThrow(() -> new TestRunNotFoundException("Test run not found with ID: " + id));
-
-		if (testRun.getStatus() == TestRunStatus.RUNNING) {
-			testRun.setStatus(TestRunStatus.STOPPED);
-			testRun.setCompletedAt(LocalDateTime.now());
-			testRunRepository.save(testRun);
+		int updated = testRunRepository.completeRun(id, TestRunStatus.STOPPED, LocalDateTime.now(),
+				ACTIVE_STATUSES);
+		if (updated > 0) {
+			publishProgress(id, TestRunStatus.STOPPED, "Test run stopped");
+			executionServiceClient.cancelExecution(id).subscribe();
 			log.info("Test run {} stopped", id);
+		} else {
+			requireExists(id);
 		}
 	}
 
-	@Transactional
+	/**
+	 * Applies a status transition with a single guarded UPDATE. A run that has
+	 * reached a terminal status keeps it; later transitions are ignored.
+	 */
 	public void updateTestRunStatus(Long testRunId, TestRunStatus status) {
 		log.info("Updating test run {} status to: {}", testRunId, status);
-		TestRun testRun = testRunRepository.findById(testRunId)
-				.orElseThrow(() -> new TestRunNotFoundException("Test run not found with ID: " + testRunId));
-		testRun.setStatus(status);
-
-		if (status == TestRunStatus.PASSED || status == TestRunStatus.FAILED || status == TestRunStatus.STOPPED) {
-			testRun.setCompletedAt(LocalDateTime.now());
+		int updated = isTerminal(status)
+				? testRunRepository.completeRun(testRunId, status, LocalDateTime.now(), ACTIVE_STATUSES)
+				: testRunRepository.transitionStatus(testRunId, status, LocalDateTime.now(), ACTIVE_STATUSES);
+		if (updated > 0) {
+			publishProgress(testRunId, status, null);
+		} else {
+			requireExists(testRunId);
+			log.info("Ignoring transition of test run {} to {}, run already finished", testRunId, status);
 		}
-
-		testRunRepository.save(testRun);
 	}
 
-	@Transactional
 	public void updateTestRunResults(Long testRunId, int passed, int failed) {
 		log.info("Updating test run {} results: passed={}, failed={}", testRunId, passed, failed);
-		TestRun testRun = testRunRepository.findById(testRunId)
-				.orElseThrow(() -> new TestRunNotFoundException("Test run not found with ID: " + testRunId));
+		TestRunStatus status = failed > 0 ? TestRunStatus.FAILED : TestRunStatus.PASSED;
+		int updated = testRunRepository.completeWithResults(testRunId, passed, failed, status, LocalDateTime.now(),
+				ACTIVE_STATUSES);
+		if (updated > 0) {
+			progressBroadcaster.publishTerminal(RunProgressEvent.builder()
+					.testRunId(testRunId)
+					.type(RunProgressEvent.EventType.STATUS)
+					.status(status.name())
+					.passedTests(passed)
+					.failedTests(failed)
+					.timestamp(LocalDateTime.now())
+					.build());
+		} else {
+			requireExists(testRunId);
+			log.info("Ignoring results for test run {}, run already finished", testRunId);
+		}
+	}
+
+	/**
+	 * Records test case results reported by the Execution Service while the run
+	 * is in progress. Results whose key was already received are ignored, so the
+	 * sender can safely retry a batch. New results are added to the run's counts
+	 * with one UPDATE and published as TEST_RESULT events, and the run is
+	 * completed once results for all of its test cases are in.
+	 *
+	 * @return number of results that were new
+	 */
+	@Transactional
+	public int recordTestResults(Long testRunId, List<TestCaseResultUpdate> results) {
+		requireExists(testRunId);
+		LocalDateTime receivedAt = LocalDateTime.now();
+		List<TestCaseResultUpdate> recorded = new ArrayList<>();
+		int passed = 0;
+		int failed = 0;
+		int skipped = 0;
+		for (TestCaseResultUpdate result : results) {
+			String status = result.getStatus() != null ? result.getStatus().toUpperCase(Locale.ROOT) : "FAILED";
+			// Without a key, the test name is the best available identity
+			String key = result.getKey() != null ? result.getKey() : "name:" + result.getTestName();
+			int inserted = testCaseResultRepository.insertIfAbsent(testRunId, key, result.getTestName(),
+					result.getBrowser(), result.getEngine(), status, result.getErrorMessage(),
+					result.getExecutionTimeMs(), result.getScreenshotPath(), receivedAt);
+			if (inserted == 0) {
+				continue;
+			}
+			result.setStatus(status);
+			recorded.add(result);
+			if ("PASSED".equals(status)) {
+				passed++;
+			} else if ("SKIPPED".equals(status)) {
+				skipped++;
+			} else {
+				failed++;
+			}
+		}
+		log.info("Test run {} received {} results ({} new): passed={}, failed={}, skipped={}", testRunId,
+				results.size(), recorded.size(), passed, failed, skipped);
+		if (recorded.isEmpty()) {
+			return 0;
+		}
+
+		testRunRepository.addResults(testRunId, passed, failed, skipped, receivedAt);
+		TestRun testRun = testRunRepository.findById(testRunId).orElseThrow();
+		afterCommit(() -> recorded.forEach(result -> progressBroadcaster.publish(RunProgressEvent.builder()
+				.testRunId(testRunId)
+				.type(RunProgressEvent.EventType.TEST_RESULT)
+				.status(testRun.getStatus().name())
+				.totalTests(testRun.getTotalTests())
+				.passedTests(testRun.getPassedTests())
+				.failedTests(testRun.getFailedTests())
+				.skippedTests(testRun.getSkippedTests())
+				.testCaseName(result.getTestName())
+				.testCaseStatus(result.getStatus())
+				.testCaseBrowser(result.getBrowser())
+				.message(result.getErrorMessage())
+				.timestamp(receivedAt)
+				.build())));
+		completeIfAllReported(testRunId);
+		return recorded.size();
+	}
+
+	/**
+	 * Moves a running run to PASSED or FAILED once the results of all its test
+	 * cases have arrived. Both the result and the total updates call this; the
+	 * check is part of the guarded UPDATE, so exactly one caller completes the run.
+	 */
+	private void completeIfAllReported(Long testRunId) {
+		LocalDateTime completedAt = LocalDateTime.now();
+		TestRunStatus status = TestRunStatus.FAILED;
+		int updated = testRunRepository.completeIfAllReported(testRunId, status, completedAt,
+				TestRunStatus.RUNNING, 1, Integer.MAX_VALUE);
+		if (updated == 0) {
+			status = TestRunStatus.PASSED;
+			updated = testRunRepository.completeIfAllReported(testRunId, status, completedAt,
+					TestRunStatus.RUNNING, 0, 0);
+		}
+		if (updated == 0) {
+			return;
+		}
+		TestRun testRun = testRunRepository.findById(testRunId).orElseThrow();
+		log.info("Test run {} completed with {}: all {} results received", testRunId, status,
+				testRun.getTotalTests());
+		// The entity may have been loaded before the UPDATE in this transaction
+		testRun.setStatus(status);
+		testRun.setCompletedAt(completedAt);
+		afterCommit(() -> progressBroadcaster.publishTerminal(
+				toProgressEvent(testRun, RunProgressEvent.EventType.STATUS, null)));
+	}
 
-		testRun.setPassedTests(passed);
-		testRun.setFailedTests(failed);
-		testRun.setStatus(failed > 0 ? TestRunStatus.FAILED : TestRunStatus.PASSED);
-		testRun.setCompletedAt(LocalDateTime.now());
+	/**
+	 * Reconciles the run with the outcome of one of its execution jobs. The job's
+	 * results were sent before, so a completed job may complete the run; a failed
+	 * job fails it, as some of its test cases will never report.
+	 */
+	public void recordExecutionJob(Long testRunId, ExecutionJobUpdate update) {
+		log.info("Execution job {} of test run {} ended with {}", update.getJobId(), testRunId, update.getState());
+		if ("FAILED".equalsIgnoreCase(update.getState())) {
+			updateTestRunWithError(testRunId, "Execution job failed: " + update.getErrorMessage());
+		} else {
+			requireExists(testRunId);
+			completeIfAllReported(testRunId);
+		}
+	}
 
-		testRunRepository.save(testRun);
+	/**
+	 * Fails running runs that made no progress for the stale period, e.g. because
+	 * results were lost or the Execution Service stopped while running them.
+	 * The guarded UPDATE leaves runs alone that completed in the meantime.
+	 */
+	@Scheduled(fixedDelayString = "${orchestration.run.stale-sweep-interval-ms:60000}")
+	public void failStaleRuns() {
+		LocalDateTime cutoff = LocalDateTime.now().minusMinutes(staleAfterMinutes);
+		for (Long testRunId : testRunRepository.findIdleRunIds(TestRunStatus.RUNNING, cutoff)) {
+			try {
+				updateTestRunWithError(testRunId, "No progress for " + staleAfterMinutes + " minutes");
+			} catch (Exception e) {
+				log.error("Failed to fail stale test run {}: ", testRunId, e);
+			}
+		}
+	}
+
+	// Subscribers must not see a change that may still be rolled back
+	private void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
 	}
 
-	@Transactional
 	public void updateTestRunWithError(Long testRunId, String errorMessage) {
 		log.error("Test run {} failed with error: {}", testRunId, errorMessage);
-		TestRun testRun = testRunRepository.findById(testRunId)
-				.orElseThrow(() -> new TestRunNotFoundException("Test run not found with ID: " + testRunId));
+		int updated = testRunRepository.completeWithError(testRunId, TestRunStatus.FAILED, errorMessage,
+				LocalDateTime.now(), ACTIVE_STATUSES);
+		if (updated > 0) {
+			publishProgress(testRunId, TestRunStatus.FAILED, errorMessage);
+		} else {
+			requireExists(testRunId);
+		}
+	}
+
+	private boolean updateTotalTests(Long testRunId, int totalTests, String message) {
+		if (testRunRepository.updateTotalTests(testRunId, totalTests, TestRunStatus.RUNNING,
+				LocalDateTime.now()) == 0) {
+			return false;
+		}
+		progressBroadcaster.publish(RunProgressEvent.builder()
+				.testRunId(testRunId)
+				.type(RunProgressEvent.EventType.STATUS)
+				.status(TestRunStatus.RUNNING.name())
+				.totalTests(totalTests)
+				.message(message)
+				.timestamp(LocalDateTime.now())
+				.build());
+		return true;
+	}
+
+	private void requireExists(Long testRunId) {
+		if (!testRunRepository.existsById(testRunId)) {
+			throw new TestRunNotFoundException("Test run not found with ID: " + testRunId);
+		}
+	}
+
+	/**
+	 * Streams progress of a run: a snapshot of its current state followed by live
+	 * status transitions and test case results. The stream completes once the run
+	 * reaches a terminal status.
+	 */
+	public Flux<RunProgressEvent> streamTestRunProgress(Long id) {
+		TestRun testRun = testRunRepository.findById(id)
+				.orElseThrow(() -> new TestRunNotFoundException("Test run not found with ID: " + id));
+		if (isTerminal(testRun.getStatus())) {
+			return Flux.just(toProgressEvent(testRun, RunProgressEvent.EventType.SNAPSHOT, null));
+		}
 
-		testRun.setStatus(TestRunStatus.FAILED);
-		testRun.setErrorMessage(errorMessage);
-		testRun.setCompletedAt(LocalDateTime.now());
+		// Subscribe to live events first, then read the snapshot, so no transition falls in between
+		Mono<RunProgressEvent> snapshot = Mono.fromCallable(() -> testRunRepository.findById(id)
+						.map(run -> toProgressEvent(run, RunProgressEvent.EventType.SNAPSHOT, null))
+						.orElseThrow(() -> new TestRunNotFoundException("Test run not found with ID: " + id)))
+				.subscribeOn(Schedulers.boundedElastic());
+		return Flux.merge(progressBroadcaster.subscribe(id), snapshot)
+				.takeUntil(event -> isTerminal(TestRunStatus.valueOf(event.getStatus())));
+	}
+
+	private void publishProgress(Long testRunId, TestRunStatus status, String message) {
+		RunProgressEvent event = RunProgressEvent.builder()
+				.testRunId(testRunId)
+				.type(RunProgressEvent.EventType.STATUS)
+				.status(status.name())
+				.message(message)
+				.timestamp(LocalDateTime.now())
+				.build();
+		if (isTerminal(status)) {
+			progressBroadcaster.publishTerminal(event);
+		} else {
+			progressBroadcaster.publish(event);
+		}
+	}
+
+	private RunProgressEvent toProgressEvent(TestRun testRun, RunProgressEvent.EventType type, String message) {
+		return RunProgressEvent.builder()
+				.testRunId(testRun.getId())
+				.type(type)
+				.status(testRun.getStatus().name())
+				.totalTests(testRun.getTotalTests())
+				.passedTests(testRun.getPassedTests())
+				.failedTests(testRun.getFailedTests())
+				.skippedTests(testRun.getSkippedTests())
+				.message(message != null ? message : testRun.getErrorMessage())
+				.timestamp(LocalDateTime.now())
+				.build();
+	}
+
+	/**
+	 * Browser lanes of a new run: the matrix when one is given, otherwise the
+	 * single browser, falling back to the project's default browser.
+	 */
+	private List<String> requestedBrowsers(TestRunRequest request) {
+		List<String> browsers = request.getBrowsers() == null ? List.of() : request.getBrowsers().stream()
+				.filter(browser -> browser != null && !browser.isBlank())
+				.distinct()
+				.collect(Collectors.toList());
+		if (!browsers.isEmpty()) {
+			// An explicit browser leads the matrix, it is also the one the AI Engine generates for
+			if (request.getBrowser() != null && browsers.remove(request.getBrowser())) {
+				browsers.add(0, request.getBrowser());
+			}
+			return browsers;
+		}
+		return List.of(request.getBrowser() != null ? request.getBrowser() : defaultBrowserOf(request.getProjectId()));
+	}
+
+	// Configured as projectId:browser pairs, e.g. to run a project's smoke suites on htmlunit; chrome otherwise
+	private String defaultBrowserOf(Long projectId) {
+		for (String pair : projectDefaultBrowsers.split(",")) {
+			String[] parts = pair.split(":");
+			if (parts.length == 2 && parts[0].trim().equals(String.valueOf(projectId))) {
+				return parts[1].trim().toLowerCase(Locale.ROOT);
+			}
+		}
+		return "chrome";
+	}
+
+	// Runs created before matrix support only have the single browser column
+	private List<String> browsersOf(TestRun testRun) {
+		if (testRun.getBrowsers() == null || testRun.getBrowsers().isBlank()) {
+			return List.of(testRun.getBrowser() != null ? testRun.getBrowser() : "chrome");
+		}
+		return List.of(testRun.getBrowsers().split(","));
+	}
+
+	private String lanesSuffix(List<String> browsers) {
+		return browsers.size() > 1 ? " for " + browsers.size() + " browsers " + browsers : "";
+	}
+
+	/**
+	 * Reported results of a run grouped per browser lane, in lane order.
+	 */
+	private List<BrowserResultSummary> browserResults(Long testRunId) {
+		Map<String, BrowserResultSummary> summaries = new LinkedHashMap<>();
+		for (Object[] row : testCaseResultRepository.countByBrowserAndStatus(testRunId)) {
+			String browser = row[0] != null ? (String) row[0] : "unknown";
+			BrowserResultSummary summary = summaries.computeIfAbsent(browser,
+					name -> BrowserResultSummary.builder().browser(name).build());
+			int count = ((Number) row[2]).intValue();
+			if ("PASSED".equals(row[1])) {
+				summary.setPassedTests(summary.getPassedTests() + count);
+			} else if ("SKIPPED".equals(row[1])) {
+				summary.setSkippedTests(summary.getSkippedTests() + count);
+			} else {
+				summary.setFailedTests(summary.getFailedTests() + count);
+			}
+		}
+		return new ArrayList<>(summaries.values());
+	}
 
-		testRunRepository.save(testRun);
+	private boolean isTerminal(TestRunStatus status) {
+		return status == TestRunStatus.PASSED || status == TestRunStatus.FAILED || status == TestRunStatus.STOPPED;
 	}
 
 	private TestRunResponse convertToResponse(TestRun testRun) {
@@ -172,12 +691,14 @@ public class TestOrchestrationService {
 				.url(testRun.getUrl())
 				.status(testRun.getStatus().name())
 				.browser(testRun.getBrowser())
+				.browsers(browsersOf(testRun))
 				.testType(testRun.getTestType())
 				.startedAt(testRun.getStartedAt())
 				.completedAt(testRun.getCompletedAt())
 				.totalTests(testRun.getTotalTests())
 				.passedTests(testRun.getPassedTests())
 				.failedTests(testRun.getFailedTests())
+				.skippedTests(testRun.getSkippedTests())
 				.errorMessage(testRun.getErrorMessage())
 				.build();
 	}
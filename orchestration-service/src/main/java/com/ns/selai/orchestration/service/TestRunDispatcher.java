@@ -0,0 +1,188 @@
+package com.ns.selai.orchestration.service;
+
+import com.ns.selai.orchestration.config.AsyncConfig;
+import com.ns.selai.orchestration.model.TestRun.TestRunStatus;
+import com.ns.selai.orchestration.model.TestRunQueueEntry;
+import com.ns.selai.orchestration.model.TestRunQueueEntry.QueueStatus;
+import com.ns.selai.orchestration.repository.TestRunQueueRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Claims queued test runs from the durable test_run_queue table and starts their
+ * non-blocking pipeline. In-flight runs are bounded by max-in-flight rather than
+ * by thread count. Several orchestration nodes can poll the same table:
+ * rows are locked with FOR UPDATE SKIP LOCKED, claimed under a lease that this
+ * node renews while the run is in flight, and reclaimed by any node once the
+ * lease expires (e.g. after a crash). Which of the queued runs are claimed is
+ * decided by {@link RunSchedulingPolicy}. The queue entry is removed once the
+ * run is handed to the Execution Service, but the run counts towards the
+ * scheduling limits until it completes.
+ */
+@Service
+@Slf4j
+public class TestRunDispatcher {
+
+    private final TestRunQueueRepository queueRepository;
+    private final TestOrchestrationService orchestrationService;
+    private final RunSchedulingPolicy schedulingPolicy;
+    private final ThreadPoolTaskExecutor testRunExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${orchestration.queue.max-in-flight:200}")
+    private int maxInFlight;
+
+    @Value("${orchestration.queue.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${orchestration.queue.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${orchestration.scheduling.candidate-window-factor:4}")
+    private int candidateWindowFactor;
+
+    public TestRunDispatcher(TestRunQueueRepository queueRepository,
+            TestOrchestrationService orchestrationService,
+            RunSchedulingPolicy schedulingPolicy,
+            @Qualifier(AsyncConfig.TEST_RUN_EXECUTOR) ThreadPoolTaskExecutor testRunExecutor,
+            PlatformTransactionManager transactionManager,
+            @Value("${orchestration.queue.node-id:}") String nodeId) {
+        this.queueRepository = queueRepository;
+        this.orchestrationService = orchestrationService;
+        this.schedulingPolicy = schedulingPolicy;
+        this.testRunExecutor = testRunExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        log.info("Test run dispatcher node ID: {}", this.nodeId);
+    }
+
+    @Scheduled(fixedDelayString = "${orchestration.queue.poll-interval-ms:1000}")
+    public void pollQueue() {
+        // Each in-flight run has at most one blocking step queued on the executor at a time
+        int free = Math.min(maxInFlight - inFlight.size(),
+                testRunExecutor.getThreadPoolExecutor().getQueue().remainingCapacity());
+        if (free <= 0) {
+            return;
+        }
+
+        ClaimResult result = transactionTemplate.execute(status -> claim(free));
+        if (result == null) {
+            return;
+        }
+
+        for (Long testRunId : result.abandoned()) {
+            orchestrationService.updateTestRunWithError(testRunId,
+                    "Test run abandoned after " + maxAttempts + " processing attempts");
+        }
+        for (Long testRunId : result.claimed()) {
+            dispatch(testRunId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orchestration.queue.heartbeat-interval-ms:15000}")
+    public void renewLeases() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        Set<Long> testRunIds = Set.copyOf(inFlight);
+        Integer renewed = transactionTemplate.execute(status -> queueRepository.renewLeases(nodeId, testRunIds,
+                LocalDateTime.now().plusSeconds(leaseSeconds)));
+        if (renewed != null && renewed < testRunIds.size()) {
+            log.warn("Renewed {} of {} leases; some runs were reclaimed by another node", renewed,
+                    testRunIds.size());
+        }
+    }
+
+    private ClaimResult claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> claimed = new ArrayList<>();
+        List<Long> abandoned = new ArrayList<>();
+
+        // Lock a window larger than the free capacity so the policy can pick across projects
+        List<TestRunQueueEntry> candidates = new ArrayList<>();
+        for (TestRunQueueEntry entry : queueRepository.lockClaimable(now, limit * candidateWindowFactor)) {
+            if (entry.getAttempts() >= maxAttempts) {
+                queueRepository.delete(entry);
+                abandoned.add(entry.getTestRunId());
+            } else {
+                candidates.add(entry);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new ClaimResult(claimed, abandoned);
+        }
+
+        Map<Long, Long> active = new HashMap<>();
+        for (Object[] row : queueRepository.countActiveByProject(TestRunStatus.RUNNING, QueueStatus.CLAIMED, now)) {
+            active.put((Long) row[0], (Long) row[1]);
+        }
+
+        for (TestRunQueueEntry entry : schedulingPolicy.select(candidates, active, limit)) {
+            if (entry.getStatus() == QueueStatus.CLAIMED) {
+                log.warn("Reclaiming test run {} from expired lease held by {}", entry.getTestRunId(),
+                        entry.getOwnerId());
+            }
+            entry.setStatus(QueueStatus.CLAIMED);
+            entry.setOwnerId(nodeId);
+            entry.setLeaseExpiresAt(now.plusSeconds(leaseSeconds));
+            entry.setAttempts(entry.getAttempts() + 1);
+            claimed.add(entry.getTestRunId());
+        }
+        return new ClaimResult(claimed, abandoned);
+    }
+
+    private void dispatch(Long testRunId) {
+        inFlight.add(testRunId);
+        orchestrationService.processTestRun(testRunId)
+                .onErrorResume(e -> {
+                    log.error("Pipeline for test run {} terminated with error: ", testRunId, e);
+                    return Mono.empty();
+                })
+                .then(Mono.fromRunnable(() -> complete(testRunId)).subscribeOn(Schedulers.boundedElastic()))
+                .subscribe();
+    }
+
+    private void complete(Long testRunId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> queueRepository.deleteClaimed(testRunId, nodeId));
+        } catch (Exception e) {
+            log.error("Failed to remove test run {} from the queue: ", testRunId, e);
+        } finally {
+            inFlight.remove(testRunId);
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "orchestration";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private record ClaimResult(List<Long> claimed, List<Long> abandoned) {
+    }
+}
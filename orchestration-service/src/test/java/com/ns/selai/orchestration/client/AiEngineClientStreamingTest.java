@@ -0,0 +1,122 @@
+package com.ns.selai.orchestration.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ns.selai.orchestration.dto.ai.AiAnalysisResponse;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streams test cases from a local stub standing in for the Python AI Engine.
+ */
+class AiEngineClientStreamingTest {
+
+    private static final long LINE_DELAY_MS = 300;
+
+    private HttpServer stubAiEngine;
+    private final AtomicInteger streamRequests = new AtomicInteger();
+    private AiEngineClient client;
+
+    @BeforeEach
+    void startStubAiEngine() throws Exception {
+        stubAiEngine = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubAiEngine.createContext("/api/generate-tests/stream", exchange -> {
+            streamRequests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (int i = 1; i <= 3; i++) {
+                    String line = "{\"name\":\"case " + i + "\",\"description\":\"generated\",\"steps\":"
+                            + "[{\"action\":\"open_url\",\"url\":\"http://example.test\"}]}\n";
+                    body.write(line.getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                    Thread.sleep(LINE_DELAY_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stubAiEngine.start();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AiResponseCache cache = new AiResponseCache(new ObjectMapper(), meterRegistry, 10, 60, false, "unused", 10);
+        client = new AiEngineClient(WebClient.builder(), cache, meterRegistry);
+        ReflectionTestUtils.setField(client, "aiEngineBaseUrl",
+                "http://localhost:" + stubAiEngine.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "cacheEnabled", true);
+    }
+
+    @AfterEach
+    void stopStubAiEngine() {
+        stubAiEngine.stop(0);
+    }
+
+    @Test
+    void emitsEachTestCaseBeforeGenerationCompletes() {
+        long start = System.nanoTime();
+        AtomicInteger firstArrivalMs = new AtomicInteger(-1);
+
+        List<AiAnalysisResponse.TestCase> cases = client
+                .streamGeneratedTests("http://example.test", "chrome", "smoke", null, false)
+                .doOnNext(testCase -> firstArrivalMs.compareAndSet(-1,
+                        (int) Duration.ofNanos(System.nanoTime() - start).toMillis()))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        long totalMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertEquals(List.of("case 1", "case 2", "case 3"),
+                cases.stream().map(AiAnalysisResponse.TestCase::getName).toList());
+        assertTrue(firstArrivalMs.get() < totalMs - LINE_DELAY_MS,
+                "first test case should arrive before the stream completes");
+    }
+
+    @Test
+    void replaysCompletedStreamFromCache() {
+        client.streamGeneratedTests("http://example.test", "chrome", "smoke", null, false)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        List<AiAnalysisResponse.TestCase> cached = client
+                .streamGeneratedTests("http://example.test", "chrome", "smoke", null, false)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(3, cached.size());
+        assertEquals(1, streamRequests.get());
+    }
+
+    @Test
+    void concurrentStreamsShareOneAiEngineCall() {
+        Flux<AiAnalysisResponse.TestCase> first = client
+                .streamGeneratedTests("http://example.test", "chrome", "smoke", null, false);
+        Flux<AiAnalysisResponse.TestCase> second = client
+                .streamGeneratedTests("http://example.test", "chrome", "smoke", null, true);
+
+        List<List<AiAnalysisResponse.TestCase>> suites = Flux.merge(
+                        first.collectList().subscribeOn(Schedulers.boundedElastic()),
+                        second.delaySubscription(Duration.ofMillis(LINE_DELAY_MS / 2)).collectList())
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(3, suites.get(0).size());
+        assertEquals(3, suites.get(1).size());
+        assertEquals(1, streamRequests.get());
+    }
+}
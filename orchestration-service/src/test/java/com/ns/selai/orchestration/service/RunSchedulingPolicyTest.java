@@ -0,0 +1,113 @@
+package com.ns.selai.orchestration.service;
+
+import com.ns.selai.orchestration.model.TestRunQueueEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RunSchedulingPolicyTest {
+
+    private static final String PRIORITIES = "smoke:0,sanity:0,functional:1,regression:2";
+
+    private long nextId = 1;
+
+    @Test
+    void derivesPriorityFromTestType() {
+        RunSchedulingPolicy policy = policy("", "", 50);
+
+        assertEquals(0, policy.priorityFor(" Smoke "));
+        assertEquals(2, policy.priorityFor("regression"));
+        assertEquals(1, policy.priorityFor("exploratory"));
+        assertEquals(1, policy.priorityFor(null));
+        assertEquals(1, policy.priorityOf(TestRunQueueEntry.builder().projectId(1L).build()));
+    }
+
+    @Test
+    void startsHigherPriorityRunsFirst() {
+        RunSchedulingPolicy policy = policy("", "", 50);
+        TestRunQueueEntry smoke = entry(1L, 0);
+        TestRunQueueEntry functional = entry(2L, 1);
+        TestRunQueueEntry regression = entry(2L, 2);
+
+        // The busier project still goes first when its run has the higher priority
+        List<TestRunQueueEntry> selected = policy.select(List.of(smoke, functional, regression), Map.of(1L, 5L), 2);
+
+        assertEquals(List.of(smoke, functional), selected);
+    }
+
+    @Test
+    void sharesCapacityByProjectWeight() {
+        RunSchedulingPolicy policy = policy("1:3", "", 50);
+        List<TestRunQueueEntry> candidates = List.of(entry(1L, 1), entry(2L, 1), entry(1L, 1), entry(2L, 1),
+                entry(1L, 1), entry(2L, 1), entry(1L, 1), entry(2L, 1));
+
+        List<TestRunQueueEntry> selected = policy.select(candidates, Map.of(), 4);
+
+        assertEquals(3, countOf(selected, 1L));
+        assertEquals(1, countOf(selected, 2L));
+    }
+
+    @Test
+    void favoursProjectsWithFewerActiveRuns() {
+        RunSchedulingPolicy policy = policy("", "", 50);
+        List<TestRunQueueEntry> candidates = List.of(entry(1L, 1), entry(1L, 1), entry(2L, 1), entry(2L, 1));
+
+        List<TestRunQueueEntry> selected = policy.select(candidates, Map.of(1L, 2L), 2);
+
+        assertEquals(List.of(candidates.get(2), candidates.get(3)), selected);
+    }
+
+    @Test
+    void neverExceedsProjectCaps() {
+        RunSchedulingPolicy policy = policy("", "1:2", 3);
+        List<TestRunQueueEntry> candidates = List.of(entry(1L, 1), entry(1L, 1), entry(1L, 1), entry(2L, 1),
+                entry(2L, 1), entry(2L, 1), entry(2L, 1));
+
+        List<TestRunQueueEntry> selected = policy.select(candidates, Map.of(1L, 1L), 10);
+
+        assertEquals(1, countOf(selected, 1L));
+        assertEquals(3, countOf(selected, 2L));
+    }
+
+    @Test
+    void capsDoNotHoldBackLowerPriorityRunsOfOtherProjects() {
+        RunSchedulingPolicy policy = policy("", "1:1", 50);
+        TestRunQueueEntry capped = entry(1L, 0);
+        TestRunQueueEntry regression = entry(2L, 2);
+
+        List<TestRunQueueEntry> selected = policy.select(List.of(capped, regression), Map.of(1L, 1L), 2);
+
+        assertEquals(List.of(regression), selected);
+    }
+
+    @Test
+    void limitsActiveRunsOverall() {
+        RunSchedulingPolicy policy = new RunSchedulingPolicy(PRIORITIES, 1, "", "", 50, 3);
+        List<TestRunQueueEntry> candidates = List.of(entry(2L, 1), entry(3L, 1), entry(4L, 1));
+
+        assertEquals(1, policy.select(candidates, Map.of(1L, 2L), 10).size());
+        assertEquals(List.of(), policy.select(candidates, Map.of(1L, 3L), 10));
+    }
+
+    private static RunSchedulingPolicy policy(String weights, String caps, int defaultCap) {
+        return new RunSchedulingPolicy(PRIORITIES, 1, weights, caps, defaultCap, 100);
+    }
+
+    // Candidates are created in queue order, as lockClaimable returns them within a priority class
+    private TestRunQueueEntry entry(Long projectId, int priority) {
+        long id = nextId++;
+        return TestRunQueueEntry.builder()
+                .id(id)
+                .testRunId(id)
+                .projectId(projectId)
+                .priority(priority)
+                .build();
+    }
+
+    private static long countOf(List<TestRunQueueEntry> entries, Long projectId) {
+        return entries.stream().filter(entry -> projectId.equals(entry.getProjectId())).count();
+    }
+}
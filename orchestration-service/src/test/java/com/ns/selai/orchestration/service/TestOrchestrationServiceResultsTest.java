@@ -0,0 +1,180 @@
+package com.ns.selai.orchestration.service;
+
+import com.ns.selai.orchestration.client.AiEngineClient;
+import com.ns.selai.orchestration.client.ExecutionServiceClient;
+import com.ns.selai.orchestration.dto.RunProgressEvent;
+import com.ns.selai.orchestration.dto.TestCaseResultUpdate;
+import com.ns.selai.orchestration.model.TestRun;
+import com.ns.selai.orchestration.model.TestRun.TestRunStatus;
+import com.ns.selai.orchestration.repository.TestCaseResultRepository;
+import com.ns.selai.orchestration.repository.TestRunQueueRepository;
+import com.ns.selai.orchestration.repository.TestRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Records results against repositories backed by one in-memory run, whose
+ * guarded updates behave like the queries they stand in for.
+ */
+class TestOrchestrationServiceResultsTest {
+
+    private static final Long RUN_ID = 7L;
+
+    private final TestRunRepository testRunRepository = mock(TestRunRepository.class);
+    private final TestCaseResultRepository testCaseResultRepository = mock(TestCaseResultRepository.class);
+    private final RunProgressBroadcaster progressBroadcaster = mock(RunProgressBroadcaster.class);
+    private final Set<String> storedKeys = new HashSet<>();
+    private TestRun run;
+    private TestOrchestrationService service;
+
+    @BeforeEach
+    void setUp() {
+        run = TestRun.builder()
+                .id(RUN_ID)
+                .projectId(1L)
+                .status(TestRunStatus.RUNNING)
+                .totalTests(3)
+                .build();
+        service = new TestOrchestrationService(testRunRepository, mock(AiEngineClient.class),
+                mock(ExecutionServiceClient.class), mock(TestRunQueueRepository.class), Schedulers.immediate(),
+                progressBroadcaster, mock(RunSchedulingPolicy.class), testCaseResultRepository);
+
+        when(testRunRepository.existsById(RUN_ID)).thenReturn(true);
+        when(testRunRepository.findById(RUN_ID)).thenAnswer(invocation -> Optional.of(snapshot()));
+        when(testCaseResultRepository.insertIfAbsent(eq(RUN_ID), any(), any(), any(), any(), any(), any(), any(),
+                any(), any())).thenAnswer(invocation -> storedKeys.add(invocation.getArgument(1)) ? 1 : 0);
+        when(testRunRepository.addResults(eq(RUN_ID), anyInt(), anyInt(), anyInt(), any())).thenAnswer(invocation -> {
+            run.setPassedTests(count(run.getPassedTests()) + (int) invocation.getArgument(1));
+            run.setFailedTests(count(run.getFailedTests()) + (int) invocation.getArgument(2));
+            run.setSkippedTests(count(run.getSkippedTests()) + (int) invocation.getArgument(3));
+            return 1;
+        });
+        when(testRunRepository.completeIfAllReported(eq(RUN_ID), any(), any(), eq(TestRunStatus.RUNNING), anyInt(),
+                anyInt())).thenAnswer(invocation -> {
+                    int failed = count(run.getFailedTests());
+                    int reported = count(run.getPassedTests()) + failed + count(run.getSkippedTests());
+                    if (run.getStatus() != TestRunStatus.RUNNING || count(run.getTotalTests()) <= 0
+                            || reported < run.getTotalTests() || failed < (int) invocation.getArgument(4)
+                            || failed > (int) invocation.getArgument(5)) {
+                        return 0;
+                    }
+                    run.setStatus(invocation.getArgument(1));
+                    run.setCompletedAt(invocation.getArgument(2));
+                    return 1;
+                });
+    }
+
+    @Test
+    void ignoresResultsWhoseKeyWasAlreadyReceived() {
+        int first = service.recordTestResults(RUN_ID, List.of(result("a", "passed"), result("b", "FAILED")));
+        // A retried batch carries the same keys, plus one new result
+        int retried = service.recordTestResults(RUN_ID, List.of(result("a", "passed"), result("b", "FAILED"),
+                result("c", "SKIPPED")));
+        int repeated = service.recordTestResults(RUN_ID, List.of(result("c", "SKIPPED")));
+
+        assertEquals(2, first);
+        assertEquals(1, retried);
+        assertEquals(0, repeated);
+        assertEquals(1, run.getPassedTests());
+        assertEquals(1, run.getFailedTests());
+        assertEquals(1, run.getSkippedTests());
+        verify(testRunRepository).addResults(eq(RUN_ID), eq(1), eq(1), eq(0), any(LocalDateTime.class));
+        verify(testRunRepository).addResults(eq(RUN_ID), eq(0), eq(0), eq(1), any(LocalDateTime.class));
+        verify(testRunRepository, times(2)).addResults(anyLong(), anyInt(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void resultsWithoutKeyAreIdentifiedByTestName() {
+        TestCaseResultUpdate unkeyed = result(null, "PASSED");
+        unkeyed.setTestName("Login works");
+
+        service.recordTestResults(RUN_ID, List.of(unkeyed));
+        service.recordTestResults(RUN_ID, List.of(unkeyed));
+
+        assertEquals(Set.of("name:Login works"), storedKeys);
+        assertEquals(1, run.getPassedTests());
+    }
+
+    @Test
+    void completesTheRunOnceAllResultsAreIn() {
+        service.recordTestResults(RUN_ID, List.of(result("a", "PASSED"), result("b", "FAILED")));
+        assertEquals(TestRunStatus.RUNNING, run.getStatus());
+        verify(progressBroadcaster, never()).publishTerminal(any());
+
+        service.recordTestResults(RUN_ID, List.of(result("c", "PASSED")));
+        // Late duplicates and results beyond the total do not complete the run again
+        service.recordTestResults(RUN_ID, List.of(result("c", "PASSED"), result("d", "PASSED")));
+
+        assertEquals(TestRunStatus.FAILED, run.getStatus());
+        assertEquals(4, count(run.getPassedTests()) + count(run.getFailedTests()) + count(run.getSkippedTests()));
+        ArgumentCaptor<RunProgressEvent> terminal = ArgumentCaptor.forClass(RunProgressEvent.class);
+        verify(progressBroadcaster, times(1)).publishTerminal(terminal.capture());
+        assertEquals("FAILED", terminal.getValue().getStatus());
+        assertEquals(3, terminal.getValue().getTotalTests());
+    }
+
+    @Test
+    void passesTheRunWhenNoResultFailed() {
+        service.recordTestResults(RUN_ID, List.of(result("a", "PASSED"), result("b", "SKIPPED"),
+                result("c", "PASSED")));
+
+        assertEquals(TestRunStatus.PASSED, run.getStatus());
+        verify(progressBroadcaster, times(1)).publishTerminal(any());
+    }
+
+    @Test
+    void waitsForTheTotalBeforeCompleting() {
+        run.setTotalTests(null);
+
+        service.recordTestResults(RUN_ID, List.of(result("a", "PASSED")));
+
+        assertEquals(TestRunStatus.RUNNING, run.getStatus());
+        verify(progressBroadcaster, never()).publishTerminal(any());
+    }
+
+    private TestRun snapshot() {
+        return TestRun.builder()
+                .id(run.getId())
+                .projectId(run.getProjectId())
+                .status(run.getStatus())
+                .totalTests(run.getTotalTests())
+                .passedTests(run.getPassedTests())
+                .failedTests(run.getFailedTests())
+                .skippedTests(run.getSkippedTests())
+                .completedAt(run.getCompletedAt())
+                .build();
+    }
+
+    private static TestCaseResultUpdate result(String key, String status) {
+        return TestCaseResultUpdate.builder()
+                .key(key)
+                .testName("case " + key)
+                .browser("chrome")
+                .engine("chrome")
+                .status(status)
+                .build();
+    }
+
+    private static int count(Integer value) {
+        return value != null ? value : 0;
+    }
+}